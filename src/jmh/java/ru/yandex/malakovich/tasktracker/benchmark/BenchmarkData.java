@@ -0,0 +1,64 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import ru.yandex.malakovich.tasktracker.manager.TaskManager;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.HashSet;
+
+/**
+ * Fills task managers with the same data in every benchmark.
+ * Every entity gets its own hour starting at START, the first half of the hour is busy and the second one is free,
+ * so a task created inside a free half never overlaps and a task created inside a busy half always does.
+ */
+class BenchmarkData {
+    static final LocalDateTime START = LocalDateTime.of(2022, Month.JUNE, 8, 0, 0);
+    static final Duration BUSY = Duration.ofMinutes(30);
+    static final int SUBTASKS_PER_EPIC = 5;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates size entities: half of them tasks, the rest epics with SUBTASKS_PER_EPIC subtasks each.
+     * Every third entity is also viewed, so the history isn't empty.
+     * @param taskManager manager to be filled
+     * @param size total number of tasks, epics and subtasks
+     */
+    static void populate(TaskManager taskManager, int size) {
+        int hour = 0;
+        for (int i = 0; i < size / 2; i++) {
+            Task task = taskManager.createTask(new Task("description " + i, "task " + i, BUSY, slot(hour++)));
+            if (i % 3 == 0) {
+                taskManager.getTaskById(task.getId());
+            }
+        }
+
+        int created = size / 2;
+        while (created < size) {
+            Epic epic = taskManager.createEpic(Epic.create("epic description", new HashSet<>(), "epic " + created));
+            created++;
+            for (int i = 0; i < SUBTASKS_PER_EPIC && created < size; i++, created++) {
+                Subtask subtask = taskManager.createSubtask(new Subtask("description " + created,
+                        Status.values()[created % Status.values().length], epic.getId(), "subtask " + created,
+                        BUSY, slot(hour++)));
+                if (created % 3 == 0) {
+                    taskManager.getSubtaskById(subtask.getId());
+                }
+            }
+        }
+    }
+
+    static LocalDateTime slot(int hour) {
+        return START.plusHours(hour);
+    }
+
+    static LocalDateTime freeSlot(int hour) {
+        return slot(hour).plus(BUSY);
+    }
+}
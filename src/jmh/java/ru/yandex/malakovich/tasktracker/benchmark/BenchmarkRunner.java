@@ -0,0 +1,34 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks and writes the results as JSON, so two runs can be compared
+ * (e.g. with https://jmh.morethan.io).
+ * The first argument is an optional regular expression selecting the benchmarks, the second one the output file.
+ */
+public class BenchmarkRunner {
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*";
+        String result = args.length > 1
+                ? args[1]
+                : "target/jmh-result-" + FILE_NAME_FORMATTER.format(LocalDateTime.now()) + ".json";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.malakovich.tasktracker.manager.FileBackedTaskManager;
+import ru.yandex.malakovich.tasktracker.manager.PersistencePolicy;
+import ru.yandex.malakovich.tasktracker.manager.SnapshotFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBackedTaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat format;
+
+    private File file;
+    private FileBackedTaskManager taskManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tasks", ".snapshot").toFile();
+        taskManager = new FileBackedTaskManager(file, false, PersistencePolicy.writeThrough(), format);
+        BenchmarkData.populate(taskManager, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        taskManager.close();
+        new File(file.getPath() + FileBackedTaskManager.HISTORY_SUFFIX).delete();
+        file.delete();
+    }
+
+    /**
+     * Rewrites the whole snapshot, which is what every change costs with the write-through policy.
+     */
+    @Benchmark
+    public void save() {
+        taskManager.compact();
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        loaded.close();
+
+        return loaded;
+    }
+
+    /**
+     * Parses the snapshot and fills the manager on the common pool, which scales with the number of cores.
+     */
+    @Benchmark
+    public FileBackedTaskManager loadFromFileInParallel() {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, false,
+                PersistencePolicy.writeThrough(), ForkJoinPool.commonPool());
+        loaded.close();
+
+        return loaded;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.Managers;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// the reflective Gson needs access to the fields of java.time classes
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.time=ALL-UNNAMED")
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+    @Param({"adapters", "reflective"})
+    private String serialization;
+
+    private Gson gson;
+
+    private Task task;
+    private Subtask subtask;
+    private Epic epic;
+    private String taskJson;
+    private String subtaskJson;
+    private String epicJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = serialization.equals("adapters") ? Managers.getGson() : new Gson();
+        task = new Task(1, "task description", "task", BenchmarkData.BUSY, BenchmarkData.slot(0));
+        subtask = new Subtask(3, "subtask description", Status.IN_PROGRESS, 2, "subtask", BenchmarkData.BUSY,
+                BenchmarkData.slot(1));
+        epic = Epic.create(2, "epic description", Set.of(subtask), "epic");
+        taskJson = gson.toJson(task);
+        subtaskJson = gson.toJson(subtask);
+        epicJson = gson.toJson(epic);
+    }
+
+    @Benchmark
+    public String encodeTask() {
+        return gson.toJson(task);
+    }
+
+    @Benchmark
+    public String encodeSubtask() {
+        return gson.toJson(subtask);
+    }
+
+    @Benchmark
+    public String encodeEpic() {
+        return gson.toJson(epic);
+    }
+
+    @Benchmark
+    public Task decodeTask() {
+        return gson.fromJson(taskJson, Task.class);
+    }
+
+    @Benchmark
+    public Subtask decodeSubtask() {
+        return gson.fromJson(subtaskJson, Subtask.class);
+    }
+
+    @Benchmark
+    public Epic decodeEpic() {
+        return gson.fromJson(epicJson, Epic.class);
+    }
+}
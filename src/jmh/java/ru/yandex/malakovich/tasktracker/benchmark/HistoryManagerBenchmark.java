@@ -0,0 +1,85 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.malakovich.tasktracker.manager.ArrayHistoryManager;
+import ru.yandex.malakovich.tasktracker.manager.HistoryManager;
+import ru.yandex.malakovich.tasktracker.manager.InMemoryHistoryManager;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    @Param({"array", "linked"})
+    private String implementation;
+
+    private HistoryManager historyManager;
+    private Task[] tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        historyManager = implementation.equals("array") ? new ArrayHistoryManager() : new InMemoryHistoryManager();
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i, "description", "title", Duration.ZERO, null);
+            historyManager.add(tasks[i]);
+        }
+    }
+
+    /**
+     * Views a random task that is already in the history, which moves it to the end.
+     */
+    @Benchmark
+    public void add() {
+        historyManager.add(randomTask());
+    }
+
+    /**
+     * Removes a random task and puts it back, so the history keeps its size between invocations.
+     */
+    @Benchmark
+    public void removeAndAdd() {
+        Task task = randomTask();
+        historyManager.remove(task);
+        historyManager.add(task);
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    /**
+     * Reads the latest 20 views, the cost does not depend on the size of the history.
+     */
+    @Benchmark
+    public List<Task> getLatestHistory() {
+        return historyManager.getHistory(20);
+    }
+
+    private Task randomTask() {
+        return tasks[ThreadLocalRandom.current().nextInt(size)];
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.malakovich.tasktracker.KVServer;
+import ru.yandex.malakovich.tasktracker.manager.HttpTaskManager;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves to and loads from a KVServer running in the same JVM, so the numbers include the loopback HTTP round trips
+ * but not a real network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpTaskManagerBenchmark {
+    private static final String HOST = "http://localhost:" + KVServer.PORT;
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private KVServer kvServer;
+    private HttpTaskManager taskManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        kvServer = new KVServer();
+        kvServer.start();
+        taskManager = new HttpTaskManager(HOST);
+        BenchmarkData.populate(taskManager, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        taskManager.close();
+        kvServer.stop();
+    }
+
+    @Benchmark
+    public void save() {
+        taskManager.save();
+    }
+
+    @Benchmark
+    public HttpTaskManager load() {
+        return new HttpTaskManager(HOST, true);
+    }
+}
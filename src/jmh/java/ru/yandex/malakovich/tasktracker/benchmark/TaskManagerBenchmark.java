@@ -0,0 +1,58 @@
+package ru.yandex.malakovich.tasktracker.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.malakovich.tasktracker.manager.InMemoryTaskManager;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager taskManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskManager = new InMemoryTaskManager();
+        BenchmarkData.populate(taskManager, size);
+    }
+
+    /**
+     * Creates a task in a random free slot between the existing ones and deletes it,
+     * so the manager keeps its size between invocations.
+     */
+    @Benchmark
+    public Task createTaskWithTimeValidation() {
+        int hour = ThreadLocalRandom.current().nextInt(size);
+        Task task = taskManager.createTask(new Task("description", "title", BenchmarkData.BUSY,
+                BenchmarkData.freeSlot(hour)));
+        taskManager.deleteTaskById(task.getId());
+
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasksList() {
+        return taskManager.getPrioritizedTasksList();
+    }
+}
@@ -1,27 +1,44 @@
 package ru.yandex.malakovich.tasktracker;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import ru.yandex.malakovich.tasktracker.manager.TaskManager;
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.CompressionUtils;
+import ru.yandex.malakovich.tasktracker.util.ExecutorUtils;
 import ru.yandex.malakovich.tasktracker.util.Managers;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static ru.yandex.malakovich.tasktracker.HttpStatus.CREATED;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.NO_CONTENT;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.NOT_MODIFIED;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.OK;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.BAD_REQUEST;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.METHOD_NOT_ALLOWED;
@@ -30,19 +47,53 @@ public class HttpTaskServer {
     public static final int PORT = 8080;
     private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
     public static final int RESPONSE_LENGTH = 0;
+    public static final int DEFAULT_BACKLOG = 128;
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    public static final int STOP_DELAY_SECONDS = 1;
+    public static final int DEFAULT_PAGE_LIMIT = 100;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String ETAG_HEADER = "ETag";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final int NO_RESPONSE_BODY = -1;
+    private static final String ID_PARAM = "id";
+    private static final String LIMIT_PARAM = "limit";
+    private static final String CURSOR_PARAM = "cursor";
+    private static final String LAST_PARAM = "last";
+    private static final String STATUS_PARAM = "status";
+    private static final String CURSOR_SEPARATOR = "_";
     private final HttpServer server;
+    private final ExecutorService executor;
 
     public HttpTaskServer() throws IOException {
-        TaskManager taskManager = Managers.getDefault();
-        Gson gson = new Gson();
+        this(Managers.synchronizedTaskManager(Managers.getDefault()));
+    }
+
+    public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, ExecutorUtils.newBoundedThreadPool(DEFAULT_THREADS, "http-task-server"), DEFAULT_BACKLOG);
+    }
 
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        server.createContext("/tasks/task", new TasksHandler(taskManager, gson));
-        server.createContext("/tasks/subtask", new SubtasksHandler(taskManager, gson));
-        server.createContext("/tasks/epic", new EpicsHandler(taskManager, gson));
+    /**
+     * Creates and starts a server that handles every request on a thread of the specified executor.
+     * The task manager is called from several threads at once, so it has to be thread-safe,
+     * e.g. a ConcurrentTaskManager or a manager wrapped with Managers.synchronizedTaskManager.
+     * @param taskManager thread-safe task manager
+     * @param executor executor running the request handlers, it is shut down when the server stops
+     * @param backlog maximum number of incoming connections waiting to be accepted
+     * @throws IOException if the server can't be bound to the port
+     */
+    public HttpTaskServer(TaskManager taskManager, ExecutorService executor, int backlog) throws IOException {
+        Gson gson = Managers.getGson();
+        String etagPrefix = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+        this.executor = executor;
+
+        server = HttpServer.create(new InetSocketAddress(PORT), backlog);
+        server.setExecutor(executor);
+        server.createContext("/tasks/task", new TasksHandler(taskManager, gson, etagPrefix));
+        server.createContext("/tasks/subtask", new SubtasksHandler(taskManager, gson, etagPrefix));
+        server.createContext("/tasks/epic", new EpicsHandler(taskManager, gson, etagPrefix));
         server.createContext("/tasks/subtask/epic", new EpicSubtasksHandler(taskManager, gson));
-        server.createContext("/tasks/history", new TaskHistoryHandler(taskManager, gson));
-        server.createContext("/tasks", new PrioritizedTasksHandler(taskManager, gson));
+        server.createContext("/tasks/history", new TaskHistoryHandler(taskManager, gson, etagPrefix));
+        server.createContext("/tasks", new PrioritizedTasksHandler(taskManager, gson, etagPrefix));
 
         server.start();
     }
@@ -50,63 +101,85 @@ public class HttpTaskServer {
     private static class TasksHandler implements HttpHandler {
         private final TaskManager taskManager;
         private final Gson gson;
+        private final String etagPrefix;
 
-        public TasksHandler(TaskManager taskManager, Gson gson) {
+        public TasksHandler(TaskManager taskManager, Gson gson, String etagPrefix) {
             this.taskManager = taskManager;
             this.gson = gson;
+            this.etagPrefix = etagPrefix;
         }
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            URI requestURI = httpExchange.getRequestURI();
-            String query = requestURI.getQuery();
-            String response;
-
-            switch (method) {
-                case "GET":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        Task task = taskManager.getTaskById(id);
+            try {
+                String method = httpExchange.getRequestMethod();
+                URI requestURI = httpExchange.getRequestURI();
+                String query = requestURI.getQuery();
+                String response;
+
+                switch (method) {
+                    case "GET":
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey(ID_PARAM)) {
+                            int id = Integer.parseInt(params.get(ID_PARAM));
+                            Task task = taskManager.getTaskById(id);
+                            sendText(httpExchange, gson.toJson(task), OK);
+                        } else if (isNotModified(httpExchange, entityTag(etagPrefix, Type.TASK.name(),
+                                taskManager.getVersion(Type.TASK)))) {
+                            sendNotModified(httpExchange);
+                        } else if (params.containsKey(STATUS_PARAM)) {
+                            Status status = parseStatus(params);
+                            if (status == null) {
+                                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                                return;
+                            }
+                            int limit = isPageRequest(params) ? parseLimit(params) : Integer.MAX_VALUE;
+                            List<Task> page = taskManager.getTasks(status, parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Task::getId);
+                        } else if (isPageRequest(params)) {
+                            int limit = parseLimit(params);
+                            List<Task> page = taskManager.getTasks(parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Task::getId);
+                        } else {
+                            sendJsonArray(httpExchange, gson, taskManager.getTasks(), OK);
+                        }
+
+                        break;
+
+                    case "POST":
+                        String body = readText(httpExchange);
+                        if (body.isEmpty()) {
+                            httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                            return;
+                        }
+                        Task task = taskManager.createTask(gson.fromJson(body, Task.class));
                         response = gson.toJson(task);
-                    } else {
-                        List<Task> tasks = taskManager.getTasks();
-                        response = gson.toJson(tasks);
-                    }
 
-                    sendText(httpExchange, response, OK);
+                        sendText(httpExchange, response, CREATED);
 
-                    break;
+                        break;
 
-                case "POST":
-                    String body = readText(httpExchange);
-                    if (body.isEmpty()) {
-                        httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
-                        return;
-                    }
-                    Task task = taskManager.createTask(gson.fromJson(body, Task.class));
-                    response = gson.toJson(task);
-
-                    sendText(httpExchange, response, CREATED);
-
-                    break;
-
-                case "DELETE":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        taskManager.deleteTaskById(id);
-                    } else {
-                        taskManager.deleteAllTasks();
-                    }
+                    case "DELETE":
+                        if (query != null) {
+                            String[] queryElements = query.split("=");
+                            int id = Integer.parseInt(queryElements[1]);
+                            taskManager.deleteTaskById(id);
+                        } else {
+                            taskManager.deleteAllTasks();
+                        }
 
-                    httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
+                        httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
 
-                    break;
+                        break;
 
-                default:
-                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                    default:
+                        httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                // a malformed id, limit or cursor, reported before any response is sent
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
@@ -114,63 +187,84 @@ public class HttpTaskServer {
     private static class SubtasksHandler implements HttpHandler {
         private final TaskManager taskManager;
         private final Gson gson;
+        private final String etagPrefix;
 
-        public SubtasksHandler(TaskManager taskManager, Gson gson) {
+        public SubtasksHandler(TaskManager taskManager, Gson gson, String etagPrefix) {
             this.taskManager = taskManager;
             this.gson = gson;
+            this.etagPrefix = etagPrefix;
         }
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            URI requestURI = httpExchange.getRequestURI();
-            String query = requestURI.getQuery();
-            String response;
-
-            switch (method) {
-                case "GET":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        Subtask subtask = taskManager.getSubtaskById(id);
+            try {
+                String method = httpExchange.getRequestMethod();
+                URI requestURI = httpExchange.getRequestURI();
+                String query = requestURI.getQuery();
+                String response;
+
+                switch (method) {
+                    case "GET":
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey(ID_PARAM)) {
+                            int id = Integer.parseInt(params.get(ID_PARAM));
+                            Subtask subtask = taskManager.getSubtaskById(id);
+                            sendText(httpExchange, gson.toJson(subtask), OK);
+                        } else if (isNotModified(httpExchange, entityTag(etagPrefix, Type.SUBTASK.name(),
+                                taskManager.getVersion(Type.SUBTASK)))) {
+                            sendNotModified(httpExchange);
+                        } else if (params.containsKey(STATUS_PARAM)) {
+                            Status status = parseStatus(params);
+                            if (status == null) {
+                                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                                return;
+                            }
+                            int limit = isPageRequest(params) ? parseLimit(params) : Integer.MAX_VALUE;
+                            List<Subtask> page = taskManager.getSubtasks(status, parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Task::getId);
+                        } else if (isPageRequest(params)) {
+                            int limit = parseLimit(params);
+                            List<Subtask> page = taskManager.getSubtasks(parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Subtask::getId);
+                        } else {
+                            sendJsonArray(httpExchange, gson, taskManager.getSubtasks(), OK);
+                        }
+
+                        break;
+
+                    case "POST":
+                        String body = readText(httpExchange);
+                        if (body.isEmpty()) {
+                            httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                            return;
+                        }
+                        Subtask subtask = taskManager.createSubtask(gson.fromJson(body, Subtask.class));
                         response = gson.toJson(subtask);
-                    } else {
-                        List<Subtask> subtasks = taskManager.getSubtasks();
-                        response = gson.toJson(subtasks);
-                    }
 
-                    sendText(httpExchange, response, OK);
+                        sendText(httpExchange, response, CREATED);
 
-                    break;
+                        break;
 
-                case "POST":
-                    String body = readText(httpExchange);
-                    if (body.isEmpty()) {
-                        httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
-                        return;
-                    }
-                    Subtask subtask = taskManager.createSubtask(gson.fromJson(body, Subtask.class));
-                    response = gson.toJson(subtask);
+                    case "DELETE":
+                        if (query != null) {
+                            String[] queryElements = query.split("=");
+                            int id = Integer.parseInt(queryElements[1]);
+                            taskManager.deleteSubtaskById(id);
+                        } else {
+                            taskManager.deleteAllSubtasks();
+                        }
 
-                    sendText(httpExchange, response, CREATED);
+                        httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
 
-                    break;
+                        break;
 
-                case "DELETE":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        taskManager.deleteSubtaskById(id);
-                    } else {
-                        taskManager.deleteAllSubtasks();
-                    }
-
-                    httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
-
-                    break;
-
-                default:
-                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                    default:
+                        httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
@@ -178,64 +272,85 @@ public class HttpTaskServer {
     private static class EpicsHandler implements HttpHandler {
         private final TaskManager taskManager;
         private final Gson gson;
+        private final String etagPrefix;
 
-        public EpicsHandler(TaskManager taskManager, Gson gson) {
+        public EpicsHandler(TaskManager taskManager, Gson gson, String etagPrefix) {
             this.taskManager = taskManager;
             this.gson = gson;
+            this.etagPrefix = etagPrefix;
         }
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            URI requestURI = httpExchange.getRequestURI();
-            String query = requestURI.getQuery();
-            String response;
-
-            switch (method) {
-                case "GET":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        Epic epic = taskManager.getEpicById(id);
+            try {
+                String method = httpExchange.getRequestMethod();
+                URI requestURI = httpExchange.getRequestURI();
+                String query = requestURI.getQuery();
+                String response;
+
+                switch (method) {
+                    case "GET":
+                        Map<String, String> params = parseQuery(query);
+                        if (params.containsKey(ID_PARAM)) {
+                            int id = Integer.parseInt(params.get(ID_PARAM));
+                            Epic epic = taskManager.getEpicById(id);
+                            sendText(httpExchange, gson.toJson(epic), OK);
+                        } else if (isNotModified(httpExchange, entityTag(etagPrefix, Type.EPIC.name(),
+                                taskManager.getVersion(Type.EPIC)))) {
+                            sendNotModified(httpExchange);
+                        } else if (params.containsKey(STATUS_PARAM)) {
+                            Status status = parseStatus(params);
+                            if (status == null) {
+                                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                                return;
+                            }
+                            int limit = isPageRequest(params) ? parseLimit(params) : Integer.MAX_VALUE;
+                            List<Epic> page = taskManager.getEpics(status, parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Task::getId);
+                        } else if (isPageRequest(params)) {
+                            int limit = parseLimit(params);
+                            List<Epic> page = taskManager.getEpics(parseIdCursor(params), limit);
+                            sendPage(httpExchange, gson, page, limit, Epic::getId);
+                        } else {
+                            sendJsonArray(httpExchange, gson, taskManager.getEpics(), OK);
+                        }
+
+                        break;
+
+                    case "POST":
+                        String body = readText(httpExchange);
+                        if (body.isEmpty()) {
+                            httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+                            return;
+                        }
+                        Epic epic = gson.fromJson(body, Epic.class);
+                        taskManager.createEpic(epic);
                         response = gson.toJson(epic);
-                    } else {
-                        List<Epic> epics = taskManager.getEpics();
-                        response = gson.toJson(epics);
-                    }
 
-                    sendText(httpExchange, response, OK);
+                        sendText(httpExchange, response, CREATED);
 
-                    break;
+                        break;
 
-                case "POST":
-                    String body = readText(httpExchange);
-                    if (body.isEmpty()) {
-                        httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
-                        return;
-                    }
-                    Epic epic = gson.fromJson(body, Epic.class);
-                    taskManager.createEpic(epic);
-                    response = gson.toJson(epic);
+                    case "DELETE":
+                        if (query != null) {
+                            String[] queryElements = query.split("=");
+                            int id = Integer.parseInt(queryElements[1]);
+                            taskManager.deleteEpicById(id);
+                        } else {
+                            taskManager.deleteAllEpics();
+                        }
 
-                    sendText(httpExchange, response, CREATED);
+                        httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
 
-                    break;
-
-                case "DELETE":
-                    if (query != null) {
-                        String[] queryElements = query.split("=");
-                        int id = Integer.parseInt(queryElements[1]);
-                        taskManager.deleteEpicById(id);
-                    } else {
-                        taskManager.deleteAllEpics();
-                    }
+                        break;
 
-                    httpExchange.sendResponseHeaders(NO_CONTENT, RESPONSE_LENGTH);
-
-                    break;
-
-                default:
-                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                    default:
+                        httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
@@ -251,18 +366,23 @@ public class HttpTaskServer {
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            if (method.equals("GET")) {
-                URI requestURI = httpExchange.getRequestURI();
-                String query = requestURI.getQuery();
-                String[] queryElements = query.split("=");
-                int id = Integer.parseInt(queryElements[1]);
-                Epic epic = taskManager.getEpicById(id);
-                Set<Subtask> subtasks = taskManager.getEpicSubtasks(epic);
-                String response = gson.toJson(subtasks);
-                sendText(httpExchange, response, OK);
-            } else {
-                httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+            try {
+                String method = httpExchange.getRequestMethod();
+                if (method.equals("GET")) {
+                    URI requestURI = httpExchange.getRequestURI();
+                    String query = requestURI.getQuery();
+                    String[] queryElements = query.split("=");
+                    int id = Integer.parseInt(queryElements[1]);
+                    Epic epic = taskManager.getEpicById(id);
+                    Set<Subtask> subtasks = taskManager.getEpicSubtasks(epic);
+                    sendJsonArray(httpExchange, gson, subtasks, OK);
+                } else {
+                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException exception) {
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
@@ -270,21 +390,41 @@ public class HttpTaskServer {
     private static class TaskHistoryHandler implements HttpHandler {
         private final TaskManager taskManager;
         private final Gson gson;
+        private final String etagPrefix;
 
-        public TaskHistoryHandler(TaskManager taskManager, Gson gson) {
+        public TaskHistoryHandler(TaskManager taskManager, Gson gson, String etagPrefix) {
             this.taskManager = taskManager;
             this.gson = gson;
+            this.etagPrefix = etagPrefix;
         }
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            if (method.equals("GET")) {
-                List<Task> history = taskManager.history();
-                String response = gson.toJson(history);
-                sendText(httpExchange, response, OK);
-            } else {
-                httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+            try {
+                String method = httpExchange.getRequestMethod();
+                if (method.equals("GET")) {
+                    Map<String, String> params = parseQuery(httpExchange.getRequestURI().getQuery());
+                    if (isNotModified(httpExchange, entityTag(etagPrefix, "history",
+                            taskManager.getHistoryVersion()))) {
+                        sendNotModified(httpExchange);
+                    } else if (params.containsKey(LAST_PARAM)) {
+                        int last = Math.max(0, Integer.parseInt(params.get(LAST_PARAM)));
+                        sendJsonArray(httpExchange, gson, taskManager.history(last), OK);
+                    } else if (isPageRequest(params)) {
+                        int limit = parseLimit(params);
+                        List<Task> page = taskManager.history(parseIdCursor(params), limit);
+                        sendPage(httpExchange, gson, page, limit, Task::getId);
+                    } else {
+                        List<Task> history = taskManager.history();
+                        sendJsonArray(httpExchange, gson, history, OK);
+                    }
+                } else {
+                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
@@ -292,36 +432,235 @@ public class HttpTaskServer {
     private static class PrioritizedTasksHandler implements HttpHandler {
         private final TaskManager taskManager;
         private final Gson gson;
+        private final String etagPrefix;
 
-        public PrioritizedTasksHandler(TaskManager taskManager, Gson gson) {
+        public PrioritizedTasksHandler(TaskManager taskManager, Gson gson, String etagPrefix) {
             this.taskManager = taskManager;
             this.gson = gson;
+            this.etagPrefix = etagPrefix;
         }
 
         @Override
         public void handle(HttpExchange httpExchange) throws IOException {
-            String method = httpExchange.getRequestMethod();
-            if (method.equals("GET")) {
-                List<Task> prioritizedTasks = taskManager.getPrioritizedTasksList();
-                String response = gson.toJson(prioritizedTasks);
-                sendText(httpExchange, response, OK);
-            } else {
-                httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+            try {
+                String method = httpExchange.getRequestMethod();
+                if (method.equals("GET")) {
+                    Map<String, String> params = parseQuery(httpExchange.getRequestURI().getQuery());
+                    if (isNotModified(httpExchange, entityTag(etagPrefix, "prioritized",
+                            taskManager.getVersion(Type.TASK), taskManager.getVersion(Type.SUBTASK)))) {
+                        sendNotModified(httpExchange);
+                    } else if (isPageRequest(params)) {
+                        int limit = parseLimit(params);
+                        List<Task> page = taskManager.getPrioritizedTasksList(parsePrioritizedCursor(params), limit);
+                        sendPage(httpExchange, gson, page, limit, HttpTaskServer::prioritizedCursor);
+                    } else {
+                        List<Task> prioritizedTasks = taskManager.getPrioritizedTasksList();
+                        sendJsonArray(httpExchange, gson, prioritizedTasks, OK);
+                    }
+                } else {
+                    httpExchange.sendResponseHeaders(METHOD_NOT_ALLOWED, RESPONSE_LENGTH);
+                }
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                httpExchange.sendResponseHeaders(BAD_REQUEST, RESPONSE_LENGTH);
+            } finally {
+                httpExchange.close();
             }
         }
     }
 
+    /**
+     * Stops accepting new connections, lets the requests in progress finish and shuts down the executor.
+     */
     public void stop() {
-        server.stop(0);
+        server.stop(STOP_DELAY_SECONDS);
+        ExecutorUtils.shutdownGracefully(executor, TimeUnit.SECONDS.toMillis(STOP_DELAY_SECONDS));
     }
 
+    /**
+     * Sends the text compressed with the coding the client prefers, unless the text is too short to bother.
+     */
     private static void sendText(HttpExchange httpExchange, String text, int rCode) throws IOException {
         byte[] response = text.getBytes(DEFAULT_CHARSET);
         httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        String encoding = negotiateEncoding(httpExchange);
+        if (encoding != null && response.length >= CompressionUtils.MIN_COMPRESSED_LENGTH) {
+            response = CompressionUtils.compress(response, encoding);
+            httpExchange.getResponseHeaders().add(CompressionUtils.CONTENT_ENCODING_HEADER, encoding);
+        }
         httpExchange.sendResponseHeaders(rCode, response.length);
         httpExchange.getResponseBody().write(response);
     }
 
+    /**
+     * Writes the elements as a JSON array straight to the response body with chunked transfer encoding,
+     * so only one encoded element at a time is kept in memory instead of the whole array.
+     */
+    private static void sendJsonArray(HttpExchange httpExchange, Gson gson, Iterable<?> elements, int rCode)
+            throws IOException {
+        httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+        String encoding = negotiateEncoding(httpExchange);
+        if (encoding != null) {
+            httpExchange.getResponseHeaders().add(CompressionUtils.CONTENT_ENCODING_HEADER, encoding);
+        }
+        httpExchange.sendResponseHeaders(rCode, RESPONSE_LENGTH);
+        OutputStream body = CompressionUtils.encode(httpExchange.getResponseBody(), encoding);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(body, DEFAULT_CHARSET));
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+        jsonWriter.beginArray();
+        for (Object element : elements) {
+            if (element == null) {
+                jsonWriter.nullValue();
+            } else {
+                gson.toJson(element, element.getClass(), jsonWriter);
+            }
+        }
+        jsonWriter.endArray();
+        jsonWriter.close();
+    }
+
+    /**
+     * Returns the coding for the response body or null, the length of a chunked body is unknown in advance,
+     * so it is compressed whenever the client accepts it.
+     */
+    private static String negotiateEncoding(HttpExchange httpExchange) {
+        httpExchange.getResponseHeaders().add("Vary", CompressionUtils.ACCEPT_ENCODING_HEADER);
+
+        return CompressionUtils.negotiate(
+                httpExchange.getRequestHeaders().getFirst(CompressionUtils.ACCEPT_ENCODING_HEADER));
+    }
+
+    /**
+     * Sends a page of tasks. If the page is full, the X-Next-Cursor header holds the cursor of its last task,
+     * which is passed as the cursor parameter to get the next page.
+     */
+    private static <T extends Task> void sendPage(HttpExchange httpExchange, Gson gson, List<T> page, int limit,
+                                                  Function<? super T, ?> cursorOf) throws IOException {
+        if (!page.isEmpty() && page.size() == limit) {
+            String cursor = String.valueOf(cursorOf.apply(page.get(page.size() - 1)));
+            httpExchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, cursor);
+        }
+        sendJsonArray(httpExchange, gson, page, OK);
+    }
+
+    /**
+     * Returns a strong entity tag made of the versions of a collection. The tag starts with a prefix chosen
+     * at random when the server starts, so tags issued before a restart never match the restored state.
+     */
+    private static String entityTag(String etagPrefix, String collection, long... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(etagPrefix).append('-').append(collection);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Sends 304 without a body. The request body is drained first: a response without a body completes
+     * the exchange right away and the server closes a keep-alive connection with unread request bytes,
+     * which would fail the client's next request on it.
+     */
+    private static void sendNotModified(HttpExchange httpExchange) throws IOException {
+        httpExchange.getRequestBody().close();
+        httpExchange.sendResponseHeaders(NOT_MODIFIED, NO_RESPONSE_BODY);
+    }
+
+    /**
+     * Adds the ETag header to the response and returns true if the If-None-Match header of the request
+     * lists the same tag, then the client's copy is still valid and the collection doesn't have to be read.
+     * The versions are read before the collection, so a tag is never newer than the contents sent with it.
+     * A compressed body is another representation, so its tag gets the coding as a suffix, e.g. "...-gzip".
+     * The suffix is ignored when the tags are compared, the same contents are valid in any coding.
+     */
+    private static boolean isNotModified(HttpExchange httpExchange, String etag) {
+        String encoding = CompressionUtils.negotiate(
+                httpExchange.getRequestHeaders().getFirst(CompressionUtils.ACCEPT_ENCODING_HEADER));
+        httpExchange.getResponseHeaders().add(ETAG_HEADER, encodedTag(etag, encoding));
+        String ifNoneMatch = httpExchange.getRequestHeaders().getFirst(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals(encodedTag(etag, CompressionUtils.GZIP))
+                    || trimmed.equals(encodedTag(etag, CompressionUtils.DEFLATE))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String encodedTag(String etag, String encoding) {
+        return encoding == null ? etag : etag.substring(0, etag.length() - 1) + '-' + encoding + '"';
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                String[] elements = param.split("=", 2);
+                params.put(elements[0], elements.length > 1 ? elements[1] : "");
+            }
+        }
+
+        return params;
+    }
+
+    private static boolean isPageRequest(Map<String, String> params) {
+        return params.containsKey(LIMIT_PARAM) || params.containsKey(CURSOR_PARAM);
+    }
+
+    private static int parseLimit(Map<String, String> params) {
+        String limit = params.get(LIMIT_PARAM);
+
+        return limit == null ? DEFAULT_PAGE_LIMIT : Math.max(0, Integer.parseInt(limit));
+    }
+
+    /**
+     * Returns the status from the status parameter, e.g. IN_PROGRESS, or null if there is no such status.
+     */
+    private static Status parseStatus(Map<String, String> params) {
+        try {
+            return Status.valueOf(params.get(STATUS_PARAM));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private static Integer parseIdCursor(Map<String, String> params) {
+        String cursor = params.get(CURSOR_PARAM);
+
+        return cursor == null || cursor.isEmpty() ? null : Integer.valueOf(cursor);
+    }
+
+    /**
+     * Returns a task with the start time and id from the cursor of the prioritized list, e.g. 2022-05-01T10:00_7,
+     * or _7 for a task without a start time.
+     */
+    private static Task parsePrioritizedCursor(Map<String, String> params) {
+        String cursor = params.get(CURSOR_PARAM);
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        LocalDateTime startTime = separator > 0 ? LocalDateTime.parse(cursor.substring(0, separator)) : null;
+        int id = Integer.parseInt(cursor.substring(separator + 1));
+
+        return new Task(id, null, null, null, startTime);
+    }
+
+    private static String prioritizedCursor(Task task) {
+        String startTime = task.getStartTime() == null ? "" : task.getStartTime().toString();
+
+        return startTime + CURSOR_SEPARATOR + task.getId();
+    }
+
     private static String readText(HttpExchange httpExchange) throws IOException {
         return new String(httpExchange.getRequestBody().readAllBytes(), DEFAULT_CHARSET);
     }
@@ -4,31 +4,71 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.BAD_REQUEST;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.FORBIDDEN;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.METHOD_NOT_ALLOWED;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.NOT_FOUND;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.OK;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import ru.yandex.malakovich.tasktracker.storage.InMemoryKVStorage;
+import ru.yandex.malakovich.tasktracker.storage.KVStorage;
+import ru.yandex.malakovich.tasktracker.util.CompressionUtils;
+import ru.yandex.malakovich.tasktracker.util.ExecutorUtils;
 
 /**
  * Постман: https://www.getpostman.com/collections/a83b61d9e1c81c10575c
  */
 public class KVServer {
     public static final int PORT = 8087;
+    public static final int STOP_DELAY_SECONDS = 1;
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
     private final String apiToken;
     private final HttpServer server;
-    private final Map<String, String> data = new HashMap<>();
+    private final ExecutorService executor;
+    private final KVStorage data;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
 
     public KVServer() throws IOException {
+        this(new InMemoryKVStorage());
+    }
+
+    /**
+     * Creates a server that keeps the values in the specified storage and handles requests in parallel,
+     * e.g. new KVServer(new LogStructuredKVStorage(directory)) keeps them between restarts.
+     * The storage is closed when the server stops.
+     * @param storage thread-safe key-value storage
+     * @throws IOException if the server can't be bound to the port
+     */
+    public KVServer(KVStorage storage) throws IOException {
         apiToken = generateApiToken();
+        data = storage;
+        executor = ExecutorUtils.newBoundedThreadPool(DEFAULT_THREADS, "kv-server");
         server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+        server.setExecutor(executor);
         server.createContext("/register", this::register);
         server.createContext("/save", this::save);
         server.createContext("/load", this::load);
+        server.createContext("/delete", this::delete);
+        server.createContext("/batch/save", this::saveAll);
+        server.createContext("/batch/load", this::loadAll);
     }
 
     private void load(HttpExchange h) throws IOException {
@@ -46,8 +86,13 @@ public class KVServer {
                     h.sendResponseHeaders(BAD_REQUEST, 0);
                     return;
                 }
-                String value = data.get(key);
-                sendText(h, value);
+                ByteBuffer value = data.getBytes(key);
+                if (value == null) {
+                    System.out.println("Значение для ключа " + key + " не найдено");
+                    h.sendResponseHeaders(NOT_FOUND, 0);
+                    return;
+                }
+                sendBytes(h, value);
             } else {
                 System.out.println("/load ждёт GET-запрос, а получил: " + h.getRequestMethod());
                 h.sendResponseHeaders(METHOD_NOT_ALLOWED, 0);
@@ -65,6 +110,12 @@ public class KVServer {
                 h.sendResponseHeaders(FORBIDDEN, 0);
                 return;
             }
+            if (!hasSupportedEncoding(h)) {
+                System.out.println("Тело запроса сжато неподдерживаемым способом, поддерживаются: "
+                        + CompressionUtils.SUPPORTED_ENCODINGS);
+                h.sendResponseHeaders(UNSUPPORTED_MEDIA_TYPE, 0);
+                return;
+            }
             if ("POST".equals(h.getRequestMethod())) {
                 String key = h.getRequestURI().getPath().substring("/save/".length());
                 if (key.isEmpty()) {
@@ -73,6 +124,11 @@ public class KVServer {
                     return;
                 }
                 String value = readText(h);
+                if (value == null) {
+                    System.out.println("Тело запроса не удалось распаковать");
+                    h.sendResponseHeaders(BAD_REQUEST, 0);
+                    return;
+                }
                 if (value.isEmpty()) {
                     System.out.println("Value для сохранения пустой. value указывается в теле запроса");
                     h.sendResponseHeaders(BAD_REQUEST, 0);
@@ -90,6 +146,121 @@ public class KVServer {
         }
     }
 
+    private void delete(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/delete");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(FORBIDDEN, 0);
+                return;
+            }
+            if ("DELETE".equals(h.getRequestMethod())) {
+                String key = h.getRequestURI().getPath().substring("/delete/".length());
+                if (key.isEmpty()) {
+                    System.out.println("Key для удаления пустой. key указывается в пути: /delete/{key}");
+                    h.sendResponseHeaders(BAD_REQUEST, 0);
+                    return;
+                }
+                data.remove(key);
+                System.out.println("Значение для ключа " + key + " удалено");
+                h.sendResponseHeaders(OK, 0);
+            } else {
+                System.out.println("/delete ждёт DELETE-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(METHOD_NOT_ALLOWED, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
+    /**
+     * Applies all the changes from a JSON object in the request body, a null value deletes the key.
+     */
+    private void saveAll(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/batch/save");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(FORBIDDEN, 0);
+                return;
+            }
+            if (!hasSupportedEncoding(h)) {
+                System.out.println("Тело запроса сжато неподдерживаемым способом, поддерживаются: "
+                        + CompressionUtils.SUPPORTED_ENCODINGS);
+                h.sendResponseHeaders(UNSUPPORTED_MEDIA_TYPE, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                Map<String, String> values;
+                try {
+                    values = gson.fromJson(readText(h), new TypeToken<LinkedHashMap<String, String>>(){}.getType());
+                } catch (JsonParseException exception) {
+                    values = null;
+                }
+                if (values == null || values.containsKey("")) {
+                    System.out.println("Тело запроса должно быть JSON-объектом с непустыми ключами");
+                    h.sendResponseHeaders(BAD_REQUEST, 0);
+                    return;
+                }
+                data.apply(values);
+                System.out.println("Обновлено значений: " + values.size());
+                h.sendResponseHeaders(OK, 0);
+            } else {
+                System.out.println("/batch/save ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(METHOD_NOT_ALLOWED, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
+    /**
+     * Returns a JSON object with the values of the keys listed in a JSON array in the request body,
+     * missing keys are left out.
+     */
+    private void loadAll(HttpExchange h) throws IOException {
+        try {
+            System.out.println("\n/batch/load");
+            if (!hasAuth(h)) {
+                System.out.println("Запрос неавторизован, нужен параметр в query API_TOKEN со значением апи-ключа");
+                h.sendResponseHeaders(FORBIDDEN, 0);
+                return;
+            }
+            if (!hasSupportedEncoding(h)) {
+                System.out.println("Тело запроса сжато неподдерживаемым способом, поддерживаются: "
+                        + CompressionUtils.SUPPORTED_ENCODINGS);
+                h.sendResponseHeaders(UNSUPPORTED_MEDIA_TYPE, 0);
+                return;
+            }
+            if ("POST".equals(h.getRequestMethod())) {
+                List<String> keys;
+                try {
+                    keys = gson.fromJson(readText(h), new TypeToken<ArrayList<String>>(){}.getType());
+                } catch (JsonParseException exception) {
+                    keys = null;
+                }
+                if (keys == null) {
+                    System.out.println("Тело запроса должно быть JSON-массивом ключей");
+                    h.sendResponseHeaders(BAD_REQUEST, 0);
+                    return;
+                }
+                Map<String, String> values = new LinkedHashMap<>();
+                for (String key : keys) {
+                    String value = data.get(key);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+                sendText(h, gson.toJson(values));
+            } else {
+                System.out.println("/batch/load ждёт POST-запрос, а получил: " + h.getRequestMethod());
+                h.sendResponseHeaders(METHOD_NOT_ALLOWED, 0);
+            }
+        } finally {
+            h.close();
+        }
+    }
+
     private void register(HttpExchange h) throws IOException {
         try {
             System.out.println("\n/register");
@@ -112,7 +283,10 @@ public class KVServer {
     }
 
     public void stop() {
-        server.stop(0);
+        server.stop(STOP_DELAY_SECONDS);
+        // the storage is closed below, so the running requests have to finish writing first
+        ExecutorUtils.shutdownGracefully(executor, TimeUnit.SECONDS.toMillis(STOP_DELAY_SECONDS));
+        data.close();
     }
 
     private String generateApiToken() {
@@ -124,15 +298,63 @@ public class KVServer {
         return rawQuery != null && (rawQuery.contains("API_TOKEN=" + apiToken) || rawQuery.contains("API_TOKEN=DEBUG"));
     }
 
-    protected String readText(HttpExchange h) throws IOException {
-        return new String(h.getRequestBody().readAllBytes(), UTF_8);
+    protected boolean hasSupportedEncoding(HttpExchange h) {
+        return CompressionUtils.isSupported(h.getRequestHeaders().getFirst(CompressionUtils.CONTENT_ENCODING_HEADER));
+    }
+
+    /**
+     * Reads the request body, decoding it if the client compressed it.
+     * @return the body or null if it is not a valid stream of its coding, e.g. a truncated gzip stream
+     */
+    protected String readText(HttpExchange h) {
+        String encoding = h.getRequestHeaders().getFirst(CompressionUtils.CONTENT_ENCODING_HEADER);
+        try (InputStream body = CompressionUtils.decode(h.getRequestBody(), encoding)) {
+            return new String(body.readAllBytes(), UTF_8);
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the value to the response as is, e.g. straight from a memory-mapped segment,
+     * or compresses it on the fly if the client accepts a compressed body and the value is long enough.
+     */
+    protected void sendBytes(HttpExchange h, ByteBuffer value) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json");
+        String encoding = negotiateEncoding(h, value.remaining());
+        if (encoding == null) {
+            h.sendResponseHeaders(OK, value.remaining());
+        } else {
+            h.getResponseHeaders().add(CompressionUtils.CONTENT_ENCODING_HEADER, encoding);
+            h.sendResponseHeaders(OK, 0);
+        }
+        try (OutputStream out = CompressionUtils.encode(h.getResponseBody(), encoding)) {
+            WritableByteChannel body = Channels.newChannel(out);
+            while (value.hasRemaining()) {
+                body.write(value);
+            }
+        }
     }
 
     protected void sendText(HttpExchange h, String text) throws IOException {
         byte[] resp = text.getBytes(UTF_8);
         h.getResponseHeaders().add("Content-Type", "application/json");
+        String encoding = negotiateEncoding(h, resp.length);
+        if (encoding != null) {
+            resp = CompressionUtils.compress(resp, encoding);
+            h.getResponseHeaders().add(CompressionUtils.CONTENT_ENCODING_HEADER, encoding);
+        }
         h.sendResponseHeaders(OK, resp.length);
         h.getResponseBody().write(resp);
     }
+
+    private String negotiateEncoding(HttpExchange h, int length) {
+        h.getResponseHeaders().add("Vary", CompressionUtils.ACCEPT_ENCODING_HEADER);
+        if (length < CompressionUtils.MIN_COMPRESSED_LENGTH) {
+            return null;
+        }
+
+        return CompressionUtils.negotiate(h.getRequestHeaders().getFirst(CompressionUtils.ACCEPT_ENCODING_HEADER));
+    }
 }
 
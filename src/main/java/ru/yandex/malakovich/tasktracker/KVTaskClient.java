@@ -1,30 +1,54 @@
 package ru.yandex.malakovich.tasktracker;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import ru.yandex.malakovich.tasktracker.util.CompressionUtils;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.NOT_FOUND;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.OK;
 
 public class KVTaskClient {
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = CompressionUtils.MIN_COMPRESSED_LENGTH;
     private final HttpClient httpClient;
     private final String host;
     private final String apiToken;
+    private final int compressionThreshold;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
 
     public KVTaskClient(String url) {
+        this(url, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Creates a client that gzips the bodies of save requests of at least compressionThreshold bytes.
+     * @param url address of the KVServer
+     * @param compressionThreshold minimum size of a compressed body in bytes, Integer.MAX_VALUE turns compression off
+     */
+    public KVTaskClient(String url, int compressionThreshold) {
         httpClient = HttpClient.newHttpClient();
         this.host = url;
+        this.compressionThreshold = compressionThreshold;
         apiToken = register(httpClient, host);
     }
 
     public void put(String key, String json) {
         URI uri = URI.create(host + "/save/" + key + "?API_TOKEN=" + apiToken);
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(uri)
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
+        HttpRequest request = post(uri, json);
         try {
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() != OK) {
@@ -35,16 +59,22 @@ public class KVTaskClient {
         }
     }
 
+    /**
+     * Returns the value stored by the key or null if there is no such key.
+     */
     public String load(String key) {
         URI uri = URI.create(host + "/load/" + key + "?API_TOKEN=" + apiToken);
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(uri)
+                .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.SUPPORTED_ENCODINGS)
                 .GET()
                 .build();
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(request, decodingBodyHandler());
             if (response.statusCode() == OK) {
                 return response.body();
+            } else if (response.statusCode() == NOT_FOUND) {
+                return null;
             } else {
                 throw new RuntimeException("Не удалось получить значение от сервера");
             }
@@ -53,6 +83,116 @@ public class KVTaskClient {
         }
     }
 
+    public void delete(String key) {
+        URI uri = URI.create(host + "/delete/" + key + "?API_TOKEN=" + apiToken);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .DELETE()
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != OK) {
+                throw new RuntimeException("Не удалось удалить значение");
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Applies all the changes in a single request, a null value deletes the key.
+     * The server applies the whole batch before answering.
+     */
+    public void putAll(Map<String, String> values) {
+        try {
+            checkSaved(httpClient.send(putAllRequest(values), HttpResponse.BodyHandlers.ofString()));
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public CompletableFuture<Void> putAllAsync(Map<String, String> values) {
+        return httpClient.sendAsync(putAllRequest(values), HttpResponse.BodyHandlers.ofString())
+                .thenAccept(this::checkSaved);
+    }
+
+    /**
+     * Returns the values of the keys in a single request, keys that are not stored are left out.
+     */
+    public Map<String, String> loadAll(Collection<String> keys) {
+        try {
+            return parseLoaded(httpClient.send(loadAllRequest(keys), decodingBodyHandler()));
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public CompletableFuture<Map<String, String>> loadAllAsync(Collection<String> keys) {
+        return httpClient.sendAsync(loadAllRequest(keys), decodingBodyHandler())
+                .thenApply(this::parseLoaded);
+    }
+
+    private HttpRequest putAllRequest(Map<String, String> values) {
+        URI uri = URI.create(host + "/batch/save?API_TOKEN=" + apiToken);
+        return post(uri, gson.toJson(values));
+    }
+
+    private HttpRequest loadAllRequest(Collection<String> keys) {
+        URI uri = URI.create(host + "/batch/load?API_TOKEN=" + apiToken);
+        return HttpRequest.newBuilder()
+                .uri(uri)
+                .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.SUPPORTED_ENCODINGS)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new ArrayList<>(keys))))
+                .build();
+    }
+
+    /**
+     * Returns a POST request with the body gzipped if it is at least compressionThreshold bytes long.
+     */
+    private HttpRequest post(URI uri, String text) {
+        byte[] body = text.getBytes(UTF_8);
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(uri);
+        if (body.length >= compressionThreshold) {
+            try {
+                body = CompressionUtils.compress(body, CompressionUtils.GZIP);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            builder.header(CompressionUtils.CONTENT_ENCODING_HEADER, CompressionUtils.GZIP);
+        }
+
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    /**
+     * Returns a handler that decodes the response body according to its Content-Encoding header.
+     */
+    private static HttpResponse.BodyHandler<String> decodingBodyHandler() {
+        return responseInfo -> {
+            String encoding = responseInfo.headers().firstValue(CompressionUtils.CONTENT_ENCODING_HEADER).orElse(null);
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+                try {
+                    return new String(CompressionUtils.decompress(body, encoding), UTF_8);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private void checkSaved(HttpResponse<String> response) {
+        if (response.statusCode() != OK) {
+            throw new RuntimeException("Не удалось сохранить значения");
+        }
+    }
+
+    private Map<String, String> parseLoaded(HttpResponse<String> response) {
+        if (response.statusCode() != OK) {
+            throw new RuntimeException("Не удалось получить значения от сервера");
+        }
+        return gson.fromJson(response.body(), new TypeToken<LinkedHashMap<String, String>>(){}.getType());
+    }
+
     private String register(HttpClient httpClient, String host) {
         URI uri = URI.create(host + "/register");
         HttpRequest request = HttpRequest.newBuilder()
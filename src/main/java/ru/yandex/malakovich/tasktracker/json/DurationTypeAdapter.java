@@ -0,0 +1,75 @@
+package ru.yandex.malakovich.tasktracker.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Writes a Duration as a number of seconds, with a fraction only if the duration has nanoseconds, e.g. 5400.
+ * Also reads the object a reflective Gson used to write: {"seconds":5400,"nanos":0}.
+ */
+public class DurationTypeAdapter extends TypeAdapter<Duration> {
+
+    @Override
+    public void write(JsonWriter out, Duration value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value.getNano() == 0) {
+            out.value(value.getSeconds());
+        } else {
+            out.value(BigDecimal.valueOf(value.getSeconds()).add(BigDecimal.valueOf(value.getNano(), 9)));
+        }
+    }
+
+    @Override
+    public Duration read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            return readReflective(in);
+        }
+
+        String value = in.nextString();
+        try {
+            if (value.indexOf('.') < 0 && value.indexOf('e') < 0 && value.indexOf('E') < 0) {
+                return Duration.ofSeconds(Long.parseLong(value));
+            }
+            BigDecimal seconds = new BigDecimal(value);
+            // exact conversions, so a value out of the range of a Duration fails instead of wrapping around
+            return Duration.ofSeconds(seconds.toBigInteger().longValueExact(),
+                    seconds.remainder(BigDecimal.ONE).movePointRight(9).toBigInteger().intValueExact());
+        } catch (NumberFormatException | ArithmeticException exception) {
+            throw new JsonParseException("Invalid duration: " + value, exception);
+        }
+    }
+
+    private static Duration readReflective(JsonReader in) throws IOException {
+        long seconds = 0;
+        int nanos = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "seconds":
+                    seconds = in.nextLong();
+                    break;
+                case "nanos":
+                    nanos = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return Duration.ofSeconds(seconds, nanos);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.malakovich.tasktracker.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a LocalDateTime as an ISO-8601 string, e.g. "2022-05-01T10:00".
+ * Also reads the object a reflective Gson used to write: {"date":{"year":..},"time":{"hour":..}}.
+ */
+public class LocalDateTimeTypeAdapter extends TypeAdapter<LocalDateTime> {
+
+    @Override
+    public void write(JsonWriter out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.toString());
+        }
+    }
+
+    @Override
+    public LocalDateTime read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            return readReflective(in);
+        }
+
+        String value = in.nextString();
+        try {
+            LocalDateTime dateTime = parseIso(value);
+            return dateTime != null ? dateTime : LocalDateTime.parse(value);
+        } catch (DateTimeException exception) {
+            throw new JsonParseException("Invalid date-time: " + value, exception);
+        }
+    }
+
+    /**
+     * Parses the format LocalDateTime.toString() writes for years 0000-9999 without a DateTimeFormatter,
+     * which is several times faster. Returns null for any other format.
+     */
+    private static LocalDateTime parseIso(String value) {
+        int length = value.length();
+        if (length < 16 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':') {
+            return null;
+        }
+
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || value.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(value, 17, 19);
+            if (length > 19) {
+                if (length == 20 || length > 29 || value.charAt(19) != '.') {
+                    return null;
+                }
+                nano = digits(value, 20, length);
+                for (int i = length; i < 29 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nano < 0) {
+            return null;
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Returns the number written with the decimal digits in the range or -1 if there is another character.
+     */
+    private static int digits(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+
+        return number;
+    }
+
+    private static LocalDateTime readReflective(JsonReader in) throws IOException {
+        int year = 0;
+        int month = 1;
+        int day = 1;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int nano = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String part = in.nextName();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                int value = in.nextInt();
+                switch (part + "." + name) {
+                    case "date.year":
+                        year = value;
+                        break;
+                    case "date.month":
+                        month = value;
+                        break;
+                    case "date.day":
+                        day = value;
+                        break;
+                    case "time.hour":
+                        hour = value;
+                        break;
+                    case "time.minute":
+                        minute = value;
+                        break;
+                    case "time.second":
+                        second = value;
+                        break;
+                    case "time.nano":
+                        nano = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            in.endObject();
+        }
+        in.endObject();
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+}
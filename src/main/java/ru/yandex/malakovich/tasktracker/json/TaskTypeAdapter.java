@@ -0,0 +1,206 @@
+package ru.yandex.malakovich.tasktracker.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.IntSet;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Streams tasks, subtasks and epics field by field without reflection.
+ * Every object starts with the type field, so a list of tasks is read back with the right classes.
+ * An object without the type field is read as the class it is requested as. Null fields are left out.
+ */
+public class TaskTypeAdapter extends TypeAdapter<Task> {
+    public static final String TYPE_FIELD = "type";
+    /**
+     * Creates an adapter for every class of the task hierarchy that reads objects without the type field
+     * as the requested class.
+     */
+    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+            Class<? super T> rawType = typeToken.getRawType();
+            if (!Task.class.isAssignableFrom(rawType)) {
+                return null;
+            }
+
+            return (TypeAdapter<T>) new TaskTypeAdapter((Class<? extends Task>) rawType);
+        }
+    };
+    private final Class<? extends Task> defaultClass;
+    private final DurationTypeAdapter durationAdapter = new DurationTypeAdapter();
+    private final LocalDateTimeTypeAdapter localDateTimeAdapter = new LocalDateTimeTypeAdapter();
+
+    public TaskTypeAdapter() {
+        this(Task.class);
+    }
+
+    /**
+     * Creates an adapter that reads an object without the type field as an instance of the specified class.
+     * @param defaultClass Task, Subtask or Epic
+     */
+    public TaskTypeAdapter(Class<? extends Task> defaultClass) {
+        this.defaultClass = defaultClass;
+    }
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name(TYPE_FIELD).value(task.getType().name());
+        if (task.getId() != null) {
+            out.name("id").value(task.getId());
+        }
+        if (task.getTitle() != null) {
+            out.name("title").value(task.getTitle());
+        }
+        if (task.getDescription() != null) {
+            out.name("description").value(task.getDescription());
+        }
+        if (task.getStatus() != null) {
+            out.name("status").value(task.getStatus().name());
+        }
+        if (task.getDuration() != null) {
+            out.name("duration");
+            durationAdapter.write(out, task.getDuration());
+        }
+        if (task.getStartTime() != null) {
+            out.name("startTime");
+            localDateTimeAdapter.write(out, task.getStartTime());
+        }
+        if (task instanceof Subtask && ((Subtask) task).getEpicId() != null) {
+            out.name("epicId").value(((Subtask) task).getEpicId());
+        }
+        if (task instanceof Epic && ((Epic) task).getSubtasks() != null) {
+            out.name("subtasks").beginArray();
+            for (Integer subtaskId : ((Epic) task).getSubtasks()) {
+                out.value(subtaskId);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Type type = null;
+        Integer id = null;
+        String title = null;
+        String description = null;
+        Status status = null;
+        Duration duration = null;
+        LocalDateTime startTime = null;
+        Integer epicId = null;
+        Set<Integer> subtasks = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case TYPE_FIELD:
+                    type = readEnum(Type.class, in.nextString());
+                    break;
+                case "id":
+                    id = in.nextInt();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "status":
+                    status = readEnum(Status.class, in.nextString());
+                    break;
+                case "duration":
+                    duration = durationAdapter.read(in);
+                    break;
+                case "startTime":
+                    startTime = localDateTimeAdapter.read(in);
+                    break;
+                case "epicId":
+                    epicId = in.nextInt();
+                    break;
+                case "subtasks":
+                    subtasks = new IntSet();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        subtasks.add(in.nextInt());
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Task task;
+        switch (type == null ? defaultType() : type) {
+            case SUBTASK:
+                task = new Subtask(id, description, status, epicId, title, duration, startTime);
+                break;
+            case EPIC:
+                if (title == null || description == null) {
+                    throw new JsonParseException("Epic requires a title and a description, id=" + id);
+                }
+                task = Epic.create(id, description, status, subtasks == null ? new IntSet() : subtasks, title,
+                        duration, startTime);
+                break;
+            default:
+                task = new Task(id, description, status, title, duration, startTime);
+        }
+        if (!defaultClass.isInstance(task)) {
+            throw new JsonParseException("Expected " + defaultClass.getSimpleName() + " but was " + type);
+        }
+
+        return task;
+    }
+
+    private Type defaultType() {
+        if (Epic.class.isAssignableFrom(defaultClass)) {
+            return Type.EPIC;
+        } else if (Subtask.class.isAssignableFrom(defaultClass)) {
+            return Type.SUBTASK;
+        }
+
+        return Type.TASK;
+    }
+
+    private static <E extends Enum<E>> E readEnum(Class<E> enumClass, String value) {
+        try {
+            return Enum.valueOf(enumClass, value);
+        } catch (IllegalArgumentException exception) {
+            throw new JsonParseException("Unknown " + enumClass.getSimpleName() + ": " + value, exception);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * History with the same behaviour as InMemoryHistoryManager, kept in arrays instead of nodes and boxed keys.
+ * Every viewed task takes a slot: the links of the list are the prev and next arrays indexed by slot,
+ * and the ids are mapped to their slots by an open-addressing table with linear probing.
+ * A repeated view relinks the slot it already has and a removed task's slot is reused by the next new one,
+ * so once the arrays have grown to the size of the history, views allocate nothing.
+ * Tasks without an id are not recorded.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int NIL = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private Task[] tasks = new Task[INITIAL_SLOTS];
+    private int[] prev = new int[INITIAL_SLOTS];
+    private int[] next = new int[INITIAL_SLOTS];
+    private long[] viewedAt;
+    private int head = NIL;
+    private int tail = NIL;
+    // slots that were never used start at used, freed ones are chained through next
+    private int used;
+    private int free = NIL;
+    private int size;
+    // keys[i] is meaningful only where slots[i] != NIL
+    private int[] keys = new int[2 * INITIAL_SLOTS];
+    private int[] slots = newTable(2 * INITIAL_SLOTS);
+
+    public ArrayHistoryManager() {
+        this(InMemoryHistoryManager.UNBOUNDED);
+    }
+
+    /**
+     * Creates a history that keeps at most the specified number of the latest views.
+     * @param capacity maximum number of tasks in the history
+     */
+    public ArrayHistoryManager(int capacity) {
+        this(capacity, null, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a history that keeps at most the specified number of the latest views, none older than timeToLive.
+     * @param capacity maximum number of tasks in the history
+     * @param timeToLive time after which a view expires or null if views don't expire
+     * @param clock clock to timestamp the views with
+     */
+    public ArrayHistoryManager(int capacity, Duration timeToLive, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.timeToLiveMillis = timeToLive == null ? 0 : timeToLive.toMillis();
+        this.clock = Objects.requireNonNull(clock);
+        this.viewedAt = timeToLiveMillis > 0 ? new long[INITIAL_SLOTS] : null;
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task != null && task.getId() != null) {
+            int slot = removeKey(task.getId());
+            if (slot != NIL) {
+                unlink(slot);
+                release(slot);
+            }
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+
+        long now = timeToLiveMillis > 0 ? clock.millis() : 0;
+        evictExpired(now);
+        int id = task.getId();
+        int slot = find(id);
+        if (slot != NIL) {
+            unlink(slot);
+        } else {
+            slot = allocate();
+            putKey(id, slot);
+        }
+
+        tasks[slot] = task;
+        if (viewedAt != null) {
+            viewedAt[slot] = now;
+        }
+        linkLast(slot);
+        if (size > capacity) {
+            remove(tasks[head]);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        evictExpired();
+        List<Task> taskList = new ArrayList<>(size);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            taskList.add(tasks[slot]);
+        }
+
+        return taskList;
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative history limit: " + limit);
+        }
+        evictExpired();
+        Task[] latest = new Task[Math.min(limit, size)];
+        int slot = tail;
+        for (int i = latest.length - 1; i >= 0; i--) {
+            latest[i] = tasks[slot];
+            slot = prev[slot];
+        }
+
+        return new ArrayList<>(Arrays.asList(latest));
+    }
+
+    @Override
+    public List<Task> getHistory(Integer afterId, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative history limit: " + limit);
+        }
+        evictExpired();
+        List<Task> taskList = new ArrayList<>();
+        int slot = head;
+        if (afterId != null) {
+            int after = find(afterId);
+            slot = after == NIL ? NIL : next[after];
+        }
+
+        while (slot != NIL && taskList.size() < limit) {
+            taskList.add(tasks[slot]);
+            slot = next[slot];
+        }
+
+        return taskList;
+    }
+
+    private void evictExpired() {
+        if (timeToLiveMillis > 0) {
+            evictExpired(clock.millis());
+        }
+    }
+
+    private void evictExpired(long now) {
+        while (timeToLiveMillis > 0 && head != NIL && now - viewedAt[head] >= timeToLiveMillis) {
+            remove(tasks[head]);
+        }
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    private int allocate() {
+        size++;
+        if (free != NIL) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+
+        if (used == tasks.length) {
+            int length = tasks.length * 2;
+            tasks = Arrays.copyOf(tasks, length);
+            prev = Arrays.copyOf(prev, length);
+            next = Arrays.copyOf(next, length);
+            if (viewedAt != null) {
+                viewedAt = Arrays.copyOf(viewedAt, length);
+            }
+        }
+
+        return used++;
+    }
+
+    private void release(int slot) {
+        size--;
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+    }
+
+    private int find(int key) {
+        int mask = slots.length - 1;
+        for (int i = hash(key) & mask; slots[i] != NIL; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return slots[i];
+            }
+        }
+
+        return NIL;
+    }
+
+    private void putKey(int key, int slot) {
+        // the table is kept at most half full, so probes stay short and there is always an empty bucket
+        if (2 * size > slots.length) {
+            rehash(slots.length * 2);
+        }
+
+        int mask = slots.length - 1;
+        int i = hash(key) & mask;
+        while (slots[i] != NIL) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        slots[i] = slot;
+    }
+
+    /**
+     * Removes the key and returns its slot or NIL. The following entries of the probe chain are shifted back
+     * into the freed bucket where they can, so lookups never need tombstones.
+     */
+    private int removeKey(int key) {
+        int mask = slots.length - 1;
+        int i = hash(key) & mask;
+        while (slots[i] != NIL && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == NIL) {
+            return NIL;
+        }
+
+        int slot = slots[i];
+        int gap = i;
+        for (int j = (i + 1) & mask; slots[j] != NIL; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            // the entry at j may move to the gap only if its home bucket is not between the gap and j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = NIL;
+
+        return slot;
+    }
+
+    private void rehash(int length) {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new int[length];
+        slots = newTable(length);
+        int mask = length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != NIL) {
+                int j = hash(oldKeys[i]) & mask;
+                while (slots[j] != NIL) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                slots[j] = oldSlots[i];
+            }
+        }
+    }
+
+    private static int[] newTable(int length) {
+        int[] table = new int[length];
+        Arrays.fill(table, NIL);
+        return table;
+    }
+
+    private static int hash(int key) {
+        // ids are mostly sequential, the multiplication spreads them over the whole table
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,311 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.ManagerLoadException;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.IntSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a task manager. The file starts with the magic number and the format version,
+ * followed by blocks of [tag: byte][length: int][payload][CRC32 of the payload: int] and an END block.
+ * <p>
+ * Titles and descriptions are kept in a string table and the records refer to them by index.
+ * The table is split into STRINGS blocks, each written right before the TASKS block that uses its strings first,
+ * so neither the writer nor the reader has to hold more than one block of records in memory.
+ * A task record is [type: byte][id: int][title: int][description: int][status: byte][flags: byte]
+ * followed by the duration in seconds, the start time in epoch seconds (UTC), their nanoseconds
+ * and the epic id, each one only if its flag is set. The HISTORY block lists the viewed ids in order.
+ */
+final class BinarySnapshot {
+    static final int MAGIC = 0x5454534E;
+    static final short VERSION = 1;
+    static final int BLOCK_RECORDS = 16_384;
+    private static final byte END = 0;
+    private static final byte STRINGS = 1;
+    private static final byte TASKS = 2;
+    private static final byte HISTORY = 3;
+    private static final int NO_STRING = -1;
+    private static final byte HAS_DURATION = 1;
+    private static final byte HAS_START_TIME = 1 << 1;
+    private static final byte HAS_NANOS = 1 << 2;
+    private static final byte HAS_EPIC_ID = 1 << 3;
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    static void write(File file, List<? extends Task> tasks, List<Task> history) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            Map<String, Integer> strings = new HashMap<>();
+            Block stringBlock = new Block();
+            Block taskBlock = new Block();
+            CRC32 crc = new CRC32();
+
+            for (int from = 0; from < tasks.size(); from += BLOCK_RECORDS) {
+                int to = Math.min(tasks.size(), from + BLOCK_RECORDS);
+                int firstString = strings.size();
+                stringBlock.reset();
+                taskBlock.reset();
+                stringBlock.putInt(firstString);
+                stringBlock.putInt(0);
+                taskBlock.putInt(to - from);
+                for (Task task : tasks.subList(from, to)) {
+                    writeTask(taskBlock, task, strings, stringBlock);
+                }
+
+                stringBlock.buffer.putInt(Integer.BYTES, strings.size() - firstString);
+                writeBlock(out, STRINGS, stringBlock, crc);
+                writeBlock(out, TASKS, taskBlock, crc);
+            }
+
+            taskBlock.reset();
+            taskBlock.putInt(history.size());
+            for (Task task : history) {
+                taskBlock.putInt(task.getId());
+            }
+            writeBlock(out, HISTORY, taskBlock, crc);
+            taskBlock.reset();
+            writeBlock(out, END, taskBlock, crc);
+        }
+    }
+
+    /**
+     * Reads the snapshot into the specified collections.
+     * @throws ManagerLoadException if the file is not a snapshot of a supported version, is cut short or corrupted
+     */
+    static void read(File file, Map<Integer, Task> allTasks, Set<Integer> history) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new ManagerLoadException("Not a binary snapshot: " + file.getName());
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new ManagerLoadException("Unsupported snapshot version " + version + ": " + file.getName());
+            }
+
+            List<String> strings = new ArrayList<>();
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte tag = in.readByte();
+                ByteBuffer payload = readBlock(in, crc, file);
+                switch (tag) {
+                    case STRINGS:
+                        readStrings(payload, strings, file);
+                        break;
+                    case TASKS:
+                        int count = payload.getInt();
+                        for (int i = 0; i < count; i++) {
+                            Task task = readTask(payload, strings);
+                            allTasks.put(task.getId(), task);
+                        }
+                        break;
+                    case HISTORY:
+                        int size = payload.getInt();
+                        for (int i = 0; i < size; i++) {
+                            history.add(payload.getInt());
+                        }
+                        break;
+                    case END:
+                        return;
+                    default:
+                        throw new ManagerLoadException("Unknown snapshot block " + tag + ": " + file.getName());
+                }
+            }
+        } catch (EOFException exception) {
+            throw new ManagerLoadException("Snapshot is cut short: " + file.getName(), exception);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException exception) {
+            throw new ManagerLoadException("Malformed snapshot: " + file.getName(), exception);
+        }
+    }
+
+    private static void writeTask(Block out, Task task, Map<String, Integer> strings, Block stringBlock) {
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+        Integer epicId = task instanceof Subtask ? ((Subtask) task).getEpicId() : null;
+        boolean hasNanos = duration != null && duration.getNano() != 0
+                || startTime != null && startTime.getNano() != 0;
+        byte flags = 0;
+        flags |= duration != null ? HAS_DURATION : 0;
+        flags |= startTime != null ? HAS_START_TIME : 0;
+        flags |= hasNanos ? HAS_NANOS : 0;
+        flags |= epicId != null ? HAS_EPIC_ID : 0;
+
+        out.put((byte) task.getType().ordinal());
+        out.putInt(task.getId());
+        out.putInt(stringIndex(task.getTitle(), strings, stringBlock));
+        out.putInt(stringIndex(task.getDescription(), strings, stringBlock));
+        out.put(task.getStatus() == null ? -1 : (byte) task.getStatus().ordinal());
+        out.put(flags);
+        if (duration != null) {
+            out.putLong(duration.getSeconds());
+        }
+        if (startTime != null) {
+            out.putLong(startTime.toEpochSecond(ZoneOffset.UTC));
+        }
+        if (hasNanos) {
+            out.putInt(duration == null ? 0 : duration.getNano());
+            out.putInt(startTime == null ? 0 : startTime.getNano());
+        }
+        if (epicId != null) {
+            out.putInt(epicId);
+        }
+    }
+
+    private static Task readTask(ByteBuffer in, List<String> strings) {
+        Type type = TYPES[in.get()];
+        int id = in.getInt();
+        String title = string(in.getInt(), strings);
+        String description = string(in.getInt(), strings);
+        byte statusOrdinal = in.get();
+        Status status = statusOrdinal < 0 ? null : STATUSES[statusOrdinal];
+        byte flags = in.get();
+        long durationSeconds = (flags & HAS_DURATION) != 0 ? in.getLong() : 0;
+        long startSeconds = (flags & HAS_START_TIME) != 0 ? in.getLong() : 0;
+        int durationNanos = (flags & HAS_NANOS) != 0 ? in.getInt() : 0;
+        int startNanos = (flags & HAS_NANOS) != 0 ? in.getInt() : 0;
+        Integer epicId = (flags & HAS_EPIC_ID) != 0 ? in.getInt() : null;
+
+        Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofSeconds(durationSeconds, durationNanos) : null;
+        LocalDateTime startTime = (flags & HAS_START_TIME) != 0
+                ? LocalDateTime.ofEpochSecond(startSeconds, startNanos, ZoneOffset.UTC)
+                : null;
+
+        switch (type) {
+            case SUBTASK:
+                return new Subtask(id, description, status, epicId, title, duration, startTime);
+            case EPIC:
+                return Epic.create(id, description, status, new IntSet(), title, duration, startTime);
+            default:
+                return new Task(id, description, status, title, duration, startTime);
+        }
+    }
+
+    private static int stringIndex(String value, Map<String, Integer> strings, Block stringBlock) {
+        if (value == null) {
+            return NO_STRING;
+        }
+
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            stringBlock.putInt(bytes.length);
+            stringBlock.put(bytes);
+        }
+
+        return index;
+    }
+
+    private static String string(int index, List<String> strings) {
+        return index == NO_STRING ? null : strings.get(index);
+    }
+
+    private static void readStrings(ByteBuffer in, List<String> strings, File file) {
+        int first = in.getInt();
+        int count = in.getInt();
+        if (first != strings.size()) {
+            throw new ManagerLoadException("String table is out of order: " + file.getName());
+        }
+
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            strings.add(new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8));
+            in.position(in.position() + length);
+        }
+    }
+
+    private static void writeBlock(DataOutputStream out, byte tag, Block block, CRC32 crc) throws IOException {
+        int length = block.buffer.position();
+        crc.reset();
+        crc.update(block.buffer.array(), 0, length);
+        out.writeByte(tag);
+        out.writeInt(length);
+        out.write(block.buffer.array(), 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static ByteBuffer readBlock(DataInputStream in, CRC32 crc, File file) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > file.length()) {
+            throw new ManagerLoadException("Malformed snapshot block: " + file.getName());
+        }
+
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        crc.reset();
+        crc.update(payload, 0, length);
+        if (in.readInt() != (int) crc.getValue()) {
+            throw new ManagerLoadException("Snapshot block checksum mismatch: " + file.getName());
+        }
+
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * Payload of a block that grows as records are put into it.
+     */
+    private static final class Block {
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        void reset() {
+            buffer.clear();
+        }
+
+        void put(byte value) {
+            ensureRemaining(Byte.BYTES).put(value);
+        }
+
+        void put(byte[] value) {
+            ensureRemaining(value.length).put(value);
+        }
+
+        void putInt(int value) {
+            ensureRemaining(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) {
+            ensureRemaining(Long.BYTES).putLong(value);
+        }
+
+        private ByteBuffer ensureRemaining(int length) {
+            if (buffer.remaining() < length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+
+            return buffer;
+        }
+    }
+}
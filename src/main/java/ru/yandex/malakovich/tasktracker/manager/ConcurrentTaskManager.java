@@ -0,0 +1,573 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.ManagerUtils;
+import ru.yandex.malakovich.tasktracker.util.Managers;
+import ru.yandex.malakovich.tasktracker.util.TaskUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Task manager that can be shared between threads.
+ * Reads never lock, they see the latest completed write of every map.
+ * Changes of an epic and its subtasks are made while holding the lock of the epic's stripe,
+ * changes of the time slots are made while holding the schedule lock, which is always taken after the stripe lock.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int STRIPES = 64;
+
+    private final AtomicInteger id = new AtomicInteger(1);
+    private final ConcurrentNavigableMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private final NavigableSet<Task> prioritizedTasks =
+            new ConcurrentSkipListSet<>(TaskUtils.START_TIME_TASK_COMPARATOR);
+    private final HistoryManager historyManager = new SynchronizedHistoryManager(Managers.getDefaultHistory());
+    private final TimeSlotIndex timeSlots = new TimeSlotIndex();
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final ReentrantLock[] epicLocks = new ReentrantLock[STRIPES];
+    // every aggregate is read and changed only while holding the lock of its epic's stripe
+    private final Map<Integer, EpicAggregate> epicAggregates = new ConcurrentHashMap<>();
+    private final VersionCounter versions = new VersionCounter();
+
+    public ConcurrentTaskManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksList() {
+        return new ArrayList<>(prioritizedTasks);
+    }
+
+    @Override
+    public List<Epic> getEpics(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? epics.values() : epics.tailMap(afterId, false).values(), limit);
+    }
+
+    @Override
+    public List<Task> getTasks(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? tasks.values() : tasks.tailMap(afterId, false).values(), limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? subtasks.values() : subtasks.tailMap(afterId, false).values(),
+                limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksList(Task after, int limit) {
+        return ManagerUtils.page(after == null ? prioritizedTasks : prioritizedTasks.tailSet(after, false), limit);
+    }
+
+    @Override
+    public List<Epic> getEpics(Status status, Integer afterId, int limit) {
+        return page(epics, status, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasks(Status status, Integer afterId, int limit) {
+        return page(tasks, status, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Status status, Integer afterId, int limit) {
+        return page(subtasks, status, afterId, limit);
+    }
+
+    public int getNextId() {
+        return id.getAndIncrement();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAllEpics();
+        try {
+            for (Epic epic : epics.values()) {
+                historyManager.remove(epic);
+            }
+            epics.clear();
+            epicAggregates.clear();
+            removeAllSubtasks();
+            versions.changed(Type.EPIC);
+            versions.historyChanged();
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (Integer id : tasks.keySet()) {
+            Task task = removeTask(id);
+            if (task != null) {
+                historyManager.remove(task);
+                versions.changed(Type.TASK);
+                versions.historyChanged();
+            }
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        lockAllEpics();
+        try {
+            removeAllSubtasks();
+            epicAggregates.clear();
+            for (Epic epic : epics.values()) {
+                epics.replace(epic.getId(), Epic.create(epic.getId(), epic.getDescription(), new HashSet<>(),
+                        epic.getTitle()));
+            }
+            versions.changed(Type.EPIC);
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            System.out.println("Epic not found, id=" + id);
+
+            return null;
+        }
+
+        historyManager.add(epic);
+        if (!epics.containsKey(id)) {
+            historyManager.remove(epic);
+        }
+        versions.historyChanged();
+
+        return epic;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            System.out.println("Task not found, id=" + id);
+
+            return null;
+        }
+
+        historyManager.add(task);
+        if (!tasks.containsKey(id)) {
+            historyManager.remove(task);
+        }
+        versions.historyChanged();
+
+        return task;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            System.out.println("Subtask not found, id=" + id);
+
+            return null;
+        }
+
+        historyManager.add(subtask);
+        if (!subtasks.containsKey(id)) {
+            historyManager.remove(subtask);
+        }
+        versions.historyChanged();
+
+        return subtask;
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        Epic newEpic = null;
+        if (epic != null) {
+            newEpic = epic.getId() == null ? epic.withId(getNextId()) : epic;
+            ReentrantLock lock = lockFor(newEpic.getId());
+            lock.lock();
+            try {
+                epics.put(newEpic.getId(), newEpic);
+                versions.changed(Type.EPIC);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return newEpic;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        Task newTask = null;
+        if (task != null) {
+            scheduleLock.lock();
+            try {
+                timeSlots.validate(task);
+                newTask = task.getId() == null ? task.withId(getNextId()) : task;
+                addPrioritized(newTask);
+                tasks.put(newTask.getId(), newTask);
+                versions.changed(Type.TASK);
+            } finally {
+                scheduleLock.unlock();
+            }
+        }
+
+        return newTask;
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        Subtask newSubtask = null;
+        if (subtask != null && subtask.getEpicId() != null) {
+            ReentrantLock lock = lockFor(subtask.getEpicId());
+            lock.lock();
+            try {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    scheduleLock.lock();
+                    try {
+                        timeSlots.validate(subtask);
+                        newSubtask = subtask.getId() == null ? subtask.withId(getNextId()) : subtask;
+                        addPrioritized(newSubtask);
+                    } finally {
+                        scheduleLock.unlock();
+                    }
+                    EpicAggregate aggregate = aggregateOf(epic);
+                    subtasks.put(newSubtask.getId(), newSubtask);
+                    aggregate.add(newSubtask);
+                    epics.replace(epic.getId(), aggregate.toEpic(epic));
+                    versions.changed(Type.SUBTASK);
+                    versions.changed(Type.EPIC);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return newSubtask;
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic != null && epic.getId() != null) {
+            ReentrantLock lock = lockFor(epic.getId());
+            lock.lock();
+            try {
+                if (epics.replace(epic.getId(), epic) != null) {
+                    versions.changed(Type.EPIC);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task != null && task.getId() != null) {
+            scheduleLock.lock();
+            try {
+                timeSlots.validate(task);
+                Task oldTask = tasks.get(task.getId());
+                // the map changes first, the indexes follow only if the task is still there
+                if (oldTask != null && tasks.replace(task.getId(), oldTask, task)) {
+                    removePrioritized(oldTask);
+                    addPrioritized(task);
+                    versions.changed(Type.TASK);
+                }
+            } finally {
+                scheduleLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null || subtask.getId() == null || subtask.getEpicId() == null) {
+            return;
+        }
+
+        while (true) {
+            Subtask oldSubtask = subtasks.get(subtask.getId());
+            if (oldSubtask == null) {
+                return;
+            }
+
+            ReentrantLock first = epicLocks[Math.min(stripe(oldSubtask.getEpicId()), stripe(subtask.getEpicId()))];
+            ReentrantLock second = epicLocks[Math.max(stripe(oldSubtask.getEpicId()), stripe(subtask.getEpicId()))];
+            first.lock();
+            second.lock();
+            try {
+                if (subtasks.get(subtask.getId()) == oldSubtask) {
+                    updateSubtaskLocked(oldSubtask, subtask);
+                    return;
+                }
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    private void updateSubtaskLocked(Subtask oldSubtask, Subtask subtask) {
+        Epic newEpic = epics.get(subtask.getEpicId());
+        if (newEpic == null) {
+            return;
+        }
+
+        scheduleLock.lock();
+        try {
+            timeSlots.validate(subtask);
+            removePrioritized(oldSubtask);
+            addPrioritized(subtask);
+        } finally {
+            scheduleLock.unlock();
+        }
+        Epic oldEpic = epics.get(oldSubtask.getEpicId());
+        EpicAggregate oldAggregate = oldEpic != null ? aggregateOf(oldEpic) : null;
+        EpicAggregate newAggregate = aggregateOf(newEpic);
+        subtasks.put(subtask.getId(), subtask);
+
+        if (oldAggregate != null) {
+            oldAggregate.remove(oldSubtask);
+            if (oldEpic != newEpic) {
+                epics.replace(oldEpic.getId(), oldAggregate.toEpic(oldEpic));
+            }
+        }
+        newAggregate.add(subtask);
+        epics.replace(newEpic.getId(), newAggregate.toEpic(newEpic));
+        versions.changed(Type.SUBTASK);
+        versions.changed(Type.EPIC);
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic != null) {
+                for (int subtaskId : epic.getSubtasks()) {
+                    Subtask subtask = subtasks.remove(subtaskId);
+                    if (subtask != null) {
+                        removePrioritized(subtask);
+                        historyManager.remove(subtask);
+                    }
+                }
+                historyManager.remove(epic);
+                epicAggregates.remove(id);
+                versions.changed(Type.SUBTASK);
+                versions.changed(Type.EPIC);
+                versions.historyChanged();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        Task task = removeTask(id);
+        if (task != null) {
+            historyManager.remove(task);
+            versions.changed(Type.TASK);
+            versions.historyChanged();
+        } else {
+            System.out.println("Could not delete task, id=" + id);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        while (true) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                return;
+            }
+
+            ReentrantLock lock = lockFor(subtask.getEpicId());
+            lock.lock();
+            try {
+                Epic epic = epics.get(subtask.getEpicId());
+                EpicAggregate aggregate = epic != null ? aggregateOf(epic) : null;
+                if (subtasks.remove(id, subtask)) {
+                    removePrioritized(subtask);
+                    historyManager.remove(subtask);
+                    if (aggregate != null) {
+                        aggregate.remove(subtask);
+                        epics.replace(epic.getId(), aggregate.toEpic(epic));
+                        versions.changed(Type.EPIC);
+                    }
+                    versions.changed(Type.SUBTASK);
+                    versions.historyChanged();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Set<Subtask> getEpicSubtasks(Epic epic) {
+        Set<Subtask> epicSubtasks = new HashSet<>();
+
+        if (epic != null) {
+            for (int id : epic.getSubtasks()) {
+                Subtask subtask = subtasks.get(id);
+                if (subtask != null) {
+                    epicSubtasks.add(subtask);
+                }
+            }
+        }
+
+        return epicSubtasks;
+    }
+
+    @Override
+    public List<Task> history() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> history(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    @Override
+    public List<Task> history(Integer afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Type type) {
+        return versions.get(type);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.getHistory();
+    }
+
+    private EpicAggregate aggregateOf(Epic epic) {
+        EpicAggregate aggregate = epicAggregates.get(epic.getId());
+        if (aggregate == null || !aggregate.isFor(epic)) {
+            aggregate = EpicAggregate.of(epic, subtasks::get);
+            epicAggregates.put(epic.getId(), aggregate);
+        }
+
+        return aggregate;
+    }
+
+    private void removeAllSubtasks() {
+        for (Subtask subtask : subtasks.values()) {
+            if (subtasks.remove(subtask.getId(), subtask)) {
+                removePrioritized(subtask);
+                historyManager.remove(subtask);
+                versions.changed(Type.SUBTASK);
+                versions.historyChanged();
+            }
+        }
+    }
+
+    private void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        timeSlots.add(task);
+    }
+
+    private void removePrioritized(Task task) {
+        scheduleLock.lock();
+        try {
+            prioritizedTasks.remove(task);
+            timeSlots.remove(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the task from the map and its time slot together under the schedule lock, so an update
+     * that holds the lock never sees the task in one of them only.
+     * @return the removed task or null if there was none
+     */
+    private Task removeTask(int id) {
+        scheduleLock.lock();
+        try {
+            Task task = tasks.remove(id);
+            if (task != null) {
+                removePrioritized(task);
+            }
+            return task;
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a page of the tasks with the status by scanning the map from the cursor. There is no status index here:
+     * a task and its index entry couldn't change together without a lock on every read.
+     */
+    private static <T extends Task> List<T> page(ConcurrentNavigableMap<Integer, T> tasks, Status status,
+                                                 Integer afterId, int limit) {
+        Collection<T> values = afterId == null ? tasks.values() : tasks.tailMap(afterId, false).values();
+        return ManagerUtils.page(() -> values.stream().filter(task -> task.getStatus() == status).iterator(), limit);
+    }
+
+    private ReentrantLock lockFor(int epicId) {
+        return epicLocks[stripe(epicId)];
+    }
+
+    private static int stripe(int epicId) {
+        return Math.floorMod(epicId, STRIPES);
+    }
+
+    private void lockAllEpics() {
+        for (ReentrantLock lock : epicLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllEpics() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            epicLocks[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.ManagerLoadException;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a CSV snapshot line by line from a file channel through a fixed buffer, so memory does not grow
+ * with the size of the file. Fields are parsed right in the buffer: only titles and descriptions become strings,
+ * numbers, enums, durations and times are read from the bytes. The history is the last line after the blank one
+ * and it is parsed as it streams by, so it is never buffered together with the tasks.
+ * <p>
+ * In parallel mode the history line and the blank line before it are found from the end of the file,
+ * the tasks between the header and the blank line are split into line-aligned chunks, and every chunk
+ * is parsed by its own reader on a ForkJoinPool. The chunks are merged in file order, so the result is the same.
+ */
+final class CsvSnapshotReader {
+    static final int BUFFER_SIZE = 1 << 20;
+    // smaller chunks cost more in scheduling and merging than they gain in parallel parsing
+    static final int MIN_CHUNK_SIZE = 4 * BUFFER_SIZE;
+    private static final byte[] HEADER = FileBackedTaskManager.HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final Type[] TYPES = Type.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final File file;
+    private final FileChannel channel;
+    private final long end;
+    private long filePosition;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+    private int lineStart;
+    private int lineEnd;
+    private int cursor;
+    private int fieldStart;
+    private int fieldEnd;
+
+    private CsvSnapshotReader(File file, FileChannel channel, long start, long end, int bufferSize) {
+        this.file = file;
+        this.channel = channel;
+        this.filePosition = start;
+        this.end = end;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the snapshot into the specified collections.
+     * @throws ManagerLoadException if the header does not match or a line can't be parsed
+     */
+    static void read(File file, Map<Integer, Task> allTasks, Set<Integer> history) throws IOException {
+        read(file, allTasks, history, BUFFER_SIZE);
+    }
+
+    static void read(File file, Map<Integer, Task> allTasks, Set<Integer> history, int bufferSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new CsvSnapshotReader(file, channel, 0, channel.size(), bufferSize).read(allTasks, history);
+        }
+    }
+
+    /**
+     * Reads the snapshot into the specified collections, parsing the tasks in parallel on the specified pool.
+     * A file too small to be split or without the blank line before the history is read sequentially.
+     * @throws ManagerLoadException if the header does not match or a line can't be parsed
+     */
+    static void read(File file, Map<Integer, Task> allTasks, Set<Integer> history, ForkJoinPool pool)
+            throws IOException {
+        read(file, allTasks, history, pool, MIN_CHUNK_SIZE);
+    }
+
+    static void read(File file, Map<Integer, Task> allTasks, Set<Integer> history, ForkJoinPool pool,
+                     long minChunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            CsvSnapshotReader header = new CsvSnapshotReader(file, channel, 0, size, HEADER.length + 2);
+            if (!header.nextLine()) {
+                return;
+            }
+            header.checkHeader();
+            long tasksStart = header.offset(header.position);
+
+            long historyStart = lineStart(channel, tasksStart, size);
+            long blankStart = historyStart > tasksStart ? lineStart(channel, tasksStart, historyStart) : historyStart;
+            int parallelism = (int) Math.min(pool.getParallelism(), (blankStart - tasksStart) / minChunkSize);
+            if (parallelism < 2 || !isBlank(channel, blankStart, historyStart)) {
+                new CsvSnapshotReader(file, channel, 0, size, BUFFER_SIZE).read(allTasks, history);
+                return;
+            }
+
+            List<Callable<Map<Integer, Task>>> chunks = new ArrayList<>();
+            long chunkSize = (blankStart - tasksStart) / parallelism;
+            long chunkStart = tasksStart;
+            while (chunkStart < blankStart) {
+                long chunkEnd = nextLineStart(channel, Math.min(chunkStart + chunkSize, blankStart), blankStart);
+                long from = chunkStart;
+                chunks.add(() -> new CsvSnapshotReader(file, channel, from, chunkEnd, BUFFER_SIZE).readTasks());
+                chunkStart = chunkEnd;
+            }
+
+            for (Future<Map<Integer, Task>> chunk : pool.invokeAll(chunks)) {
+                allTasks.putAll(join(chunk));
+            }
+            new CsvSnapshotReader(file, channel, historyStart, size, BUFFER_SIZE).readHistory(history);
+        }
+    }
+
+    private void read(Map<Integer, Task> allTasks, Set<Integer> history) throws IOException {
+        if (!nextLine()) {
+            return;
+        }
+        checkHeader();
+
+        boolean tasks = true;
+        List<Integer> lastLine = new ArrayList<>();
+        while (nextLine()) {
+            try {
+                if (tasks && isBlank()) {
+                    tasks = false;
+                } else if (tasks) {
+                    Task task = readTask();
+                    if (task != null) {
+                        allTasks.put(task.getId(), task);
+                    }
+                } else {
+                    lastLine.clear();
+                    readIds(lastLine);
+                }
+            } catch (IllegalArgumentException | ArithmeticException | DateTimeException exception) {
+                throw malformedLine(exception);
+            }
+        }
+        history.addAll(lastLine);
+    }
+
+    private Map<Integer, Task> readTasks() throws IOException {
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        while (nextLine()) {
+            try {
+                Task task = readTask();
+                if (task != null) {
+                    tasks.put(task.getId(), task);
+                }
+            } catch (IllegalArgumentException | ArithmeticException | DateTimeException exception) {
+                throw malformedLine(exception);
+            }
+        }
+
+        return tasks;
+    }
+
+    private void readHistory(Set<Integer> history) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        if (nextLine()) {
+            try {
+                readIds(ids);
+            } catch (IllegalArgumentException exception) {
+                throw malformedLine(exception);
+            }
+        }
+        history.addAll(ids);
+    }
+
+    private void checkHeader() {
+        if (!Arrays.equals(buffer, lineStart, lineEnd, HEADER, 0, HEADER.length)) {
+            throw new ManagerLoadException("Header mismatch");
+        }
+    }
+
+    private ManagerLoadException malformedLine(RuntimeException exception) {
+        return new ManagerLoadException("Malformed snapshot line at byte " + offset(lineStart) + ": "
+                + file.getName(), exception);
+    }
+
+    private Task readTask() {
+        int id = nextInt();
+        Type type = nextEnum(TYPES);
+        String title = nextString();
+        Status status = nextEnum(STATUSES);
+        String description = nextString();
+        Duration duration = nextDuration();
+        LocalDateTime startTime = nextLocalDateTime();
+
+        switch (type) {
+            case SUBTASK:
+                return new Subtask(id, description, status, nextInt(), title, duration, startTime);
+            case EPIC:
+                return Epic.create(id, description, new HashSet<>(), title);
+            case TASK:
+                return new Task(id, description, status, title, duration, startTime);
+            default:
+                System.out.println("Unsupported task type: " + type);
+                return null;
+        }
+    }
+
+    private void readIds(List<Integer> ids) {
+        while (cursor <= lineEnd) {
+            nextField();
+            if (fieldStart < fieldEnd) {
+                ids.add(parseInt());
+            }
+        }
+    }
+
+    /**
+     * Moves to the next line, reading more of the file if the line does not end in the buffer.
+     * Returns false at the end of the file.
+     */
+    private boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    setLine(position, i);
+                    position = i + 1;
+                    return true;
+                }
+            }
+
+            if (endOfFile) {
+                if (position < limit) {
+                    setLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+        cursor = start;
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // a line longer than the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+
+        int length = (int) Math.min(buffer.length - limit, end - filePosition);
+        int read = length == 0 ? -1 : channel.read(ByteBuffer.wrap(buffer, limit, length), filePosition);
+        if (read < 0) {
+            endOfFile = true;
+        } else {
+            limit += read;
+            filePosition += read;
+        }
+    }
+
+    /**
+     * Returns the position in the file of the byte at the specified index of the buffer.
+     */
+    private long offset(int index) {
+        return filePosition - limit + index;
+    }
+
+    /**
+     * Returns the start of the last line that ends at the specified position, not before the specified bound.
+     * A line break right before the end belongs to the line.
+     */
+    private static long lineStart(FileChannel channel, long bound, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = end - 1;
+        boolean lineBreak = true;
+        while (position >= bound) {
+            buffer.clear();
+            long from = Math.max(bound, position - buffer.capacity() + 1);
+            buffer.limit((int) (position - from + 1));
+            readFully(channel, buffer, from);
+            for (int i = buffer.limit() - 1; i >= 0; i--, position--) {
+                if (buffer.get(i) == '\n' && !lineBreak) {
+                    return position + 1;
+                }
+                lineBreak = false;
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * Returns the start of the first line after the specified position, or the bound if there is no such line.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long bound) throws IOException {
+        if (position == bound) {
+            return bound;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < bound) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), bound - position));
+            readFully(channel, buffer, position);
+            for (int i = 0; i < buffer.limit(); i++, position++) {
+                if (buffer.get(i) == '\n') {
+                    return position + 1;
+                }
+            }
+        }
+
+        return bound;
+    }
+
+    private static boolean isBlank(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > BUFFER_SIZE) {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        readFully(channel, buffer, start);
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) != '\n' && !isWhitespace(buffer.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static <V> V join(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading a snapshot");
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (!isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sets the bounds of the next comma-separated field of the line without the surrounding whitespace.
+     */
+    private void nextField() {
+        if (cursor > lineEnd) {
+            throw new IllegalArgumentException("Missing field");
+        }
+
+        int end = cursor;
+        while (end < lineEnd && buffer[end] != ',') {
+            end++;
+        }
+        fieldStart = cursor;
+        fieldEnd = end;
+        cursor = end + 1;
+
+        while (fieldStart < fieldEnd && isWhitespace(buffer[fieldStart])) {
+            fieldStart++;
+        }
+        while (fieldEnd > fieldStart && isWhitespace(buffer[fieldEnd - 1])) {
+            fieldEnd--;
+        }
+    }
+
+    private int nextInt() {
+        nextField();
+        return parseInt();
+    }
+
+    private int parseInt() {
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("Not a number: " + field());
+        }
+
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Not a number: " + field());
+            }
+            value = value * 10 + digit;
+        }
+
+        return Math.toIntExact(negative ? -value : value);
+    }
+
+    private <E extends Enum<E>> E nextEnum(E[] values) {
+        nextField();
+        for (E value : values) {
+            if (fieldEquals(value.name())) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown constant: " + field());
+    }
+
+    private String nextString() {
+        nextField();
+        return field();
+    }
+
+    private Duration nextDuration() {
+        nextField();
+        if (isNullField()) {
+            return null;
+        }
+
+        Duration duration = parseDuration();
+        return duration != null ? duration : Duration.parse(field());
+    }
+
+    private LocalDateTime nextLocalDateTime() {
+        nextField();
+        if (isNullField()) {
+            return null;
+        }
+
+        LocalDateTime dateTime = parseLocalDateTime();
+        return dateTime != null ? dateTime : LocalDateTime.parse(field());
+    }
+
+    /**
+     * Parses the format Duration.toString() writes for non-negative durations, e.g. PT1H30M or PT0.5S.
+     * Returns null for any other format.
+     */
+    private Duration parseDuration() {
+        if (fieldEnd - fieldStart < 4 || buffer[fieldStart] != 'P' || buffer[fieldStart + 1] != 'T') {
+            return null;
+        }
+
+        long seconds = 0;
+        int nanos = 0;
+        int i = fieldStart + 2;
+        while (i < fieldEnd) {
+            int start = i;
+            long number = 0;
+            while (i < fieldEnd && buffer[i] >= '0' && buffer[i] <= '9') {
+                number = Math.addExact(Math.multiplyExact(number, 10), buffer[i++] - '0');
+            }
+            if (i == start || i == fieldEnd) {
+                return null;
+            }
+
+            byte unit = buffer[i++];
+            if (unit == 'H') {
+                seconds = Math.addExact(seconds, Math.multiplyExact(number, 3600));
+            } else if (unit == 'M') {
+                seconds = Math.addExact(seconds, Math.multiplyExact(number, 60));
+            } else if (unit == 'S' || unit == '.') {
+                seconds = Math.addExact(seconds, number);
+                if (unit == '.') {
+                    int digits = 0;
+                    while (i < fieldEnd && buffer[i] >= '0' && buffer[i] <= '9' && digits < 9) {
+                        nanos = nanos * 10 + buffer[i++] - '0';
+                        digits++;
+                    }
+                    if (digits == 0 || i != fieldEnd - 1 || buffer[i] != 'S') {
+                        return null;
+                    }
+                    for (; digits < 9; digits++) {
+                        nanos *= 10;
+                    }
+                    i++;
+                }
+                if (i != fieldEnd) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        return Duration.ofSeconds(seconds, nanos);
+    }
+
+    /**
+     * Parses the format LocalDateTime.toString() writes for years 0000-9999, e.g. 2022-05-01T10:00.
+     * Returns null for any other format.
+     */
+    private LocalDateTime parseLocalDateTime() {
+        int start = fieldStart;
+        int length = fieldEnd - fieldStart;
+        if (length < 16 || buffer[start + 4] != '-' || buffer[start + 7] != '-' || buffer[start + 10] != 'T'
+                || buffer[start + 13] != ':') {
+            return null;
+        }
+
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || buffer[start + 16] != ':') {
+                return null;
+            }
+            second = digits(start + 17, start + 19);
+            if (length > 19) {
+                if (length == 20 || length > 29 || buffer[start + 19] != '.') {
+                    return null;
+                }
+                nano = digits(start + 20, fieldEnd);
+                for (int i = length; i < 29 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        int year = digits(start, start + 4);
+        int month = digits(start + 5, start + 7);
+        int day = digits(start + 8, start + 10);
+        int hour = digits(start + 11, start + 13);
+        int minute = digits(start + 14, start + 16);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nano < 0) {
+            return null;
+        }
+
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Returns the number written with the decimal digits in the range or -1 if there is another character.
+     */
+    private int digits(int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            number = number * 10 + digit;
+        }
+
+        return number;
+    }
+
+    private boolean isNullField() {
+        return Arrays.equals(buffer, fieldStart, fieldEnd, NULL, 0, NULL.length);
+    }
+
+    private boolean fieldEquals(String ascii) {
+        if (fieldEnd - fieldStart != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (buffer[fieldStart + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String field() {
+        return new String(buffer, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.util.IntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Running status, start and end of an epic's subtasks.
+ * Adding or removing a subtask costs O(log k) for the status and times instead of resolving and rescanning
+ * all k subtasks, and the epic built from the aggregate is the same as Epic.create would build from the same subtasks.
+ * The epic gets a snapshot of the subtask ids, so adding a subtask with the greatest id copies nothing,
+ * while removing a subtask or adding a smaller id copies the k ids once.
+ * Start and end times are kept as multisets, so removing the earliest subtask reveals the next earliest one.
+ */
+final class EpicAggregate {
+    private final IntSet subtasks = new IntSet();
+    private final NavigableMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final NavigableMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private int statusNew;
+    private int statusDone;
+    private Epic epic;
+
+    /**
+     * Creates the aggregate of the epic's subtasks, missing subtasks are skipped.
+     * @param epic epic whose subtasks are aggregated
+     * @param allSubtasks lookup of the task manager's subtasks by id
+     * @return aggregate of the epic's subtasks
+     */
+    static EpicAggregate of(Epic epic, IntFunction<Subtask> allSubtasks) {
+        EpicAggregate aggregate = new EpicAggregate();
+        for (int id : epic.getSubtasks()) {
+            Subtask subtask = allSubtasks.apply(id);
+            if (subtask != null) {
+                aggregate.add(subtask);
+            }
+        }
+        aggregate.epic = epic;
+
+        return aggregate;
+    }
+
+    /**
+     * Returns true if the aggregate was built for this very epic.
+     * An epic replaced from outside, e.g. by updateEpic, has to be aggregated again.
+     */
+    boolean isFor(Epic epic) {
+        return this.epic == epic;
+    }
+
+    void add(Subtask subtask) {
+        if (!subtasks.add(subtask.getId())) {
+            return;
+        }
+        if (subtask.getStatus() == Status.NEW) {
+            statusNew++;
+        } else if (subtask.getStatus() == Status.DONE) {
+            statusDone++;
+        }
+        increment(startTimes, subtask.getStartTime());
+        increment(endTimes, subtask.getEndTime());
+    }
+
+    void remove(Subtask subtask) {
+        if (!subtasks.remove(subtask.getId())) {
+            return;
+        }
+        if (subtask.getStatus() == Status.NEW) {
+            statusNew--;
+        } else if (subtask.getStatus() == Status.DONE) {
+            statusDone--;
+        }
+        decrement(startTimes, subtask.getStartTime());
+        decrement(endTimes, subtask.getEndTime());
+    }
+
+    /**
+     * Builds the next version of the epic, keeping its id, description and title.
+     * @param epic current version of the epic
+     * @return epic with the aggregated status, start time, duration and subtasks
+     */
+    Epic toEpic(Epic epic) {
+        LocalDateTime startTime = startTimes.isEmpty() ? null : startTimes.firstKey();
+        LocalDateTime endTime = endTimes.isEmpty() ? null : endTimes.lastKey();
+        Duration duration = startTime == null || endTime == null ? null : Duration.between(startTime, endTime);
+
+        this.epic = Epic.create(epic.getId(), epic.getDescription(), getStatus(), subtasks.snapshot(),
+                epic.getTitle(), duration, startTime);
+
+        return this.epic;
+    }
+
+    private Status getStatus() {
+        if (statusNew == subtasks.size()) {
+            return Status.NEW;
+        } else if (statusDone == subtasks.size()) {
+            return Status.DONE;
+        } else {
+            return Status.IN_PROGRESS;
+        }
+    }
+
+    private static void increment(NavigableMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(NavigableMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
@@ -8,6 +8,8 @@ import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
 import ru.yandex.malakovich.tasktracker.model.Type;
 import ru.yandex.malakovich.tasktracker.util.ArrayUtils;
+import ru.yandex.malakovich.tasktracker.util.FileUtils;
+import ru.yandex.malakovich.tasktracker.util.IntSet;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -16,156 +18,383 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static ru.yandex.malakovich.tasktracker.model.Type.SUBTASK;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     public static final String HEADER = "id,type,name,status,description,duration,start,epic";
     public static final int HEADER_INDEX = 0;
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final String HISTORY_SUFFIX = ".history";
+    public static final int JOURNAL_SYNC_INTERVAL = 64;
+    public static final int JOURNAL_COMPACTION_THRESHOLD = 10_000;
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+    private static final String CLEAR = "CLEAR";
+    private static final String VIEW = "VIEW";
     private final File file;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final boolean historyJournaled;
+    // opened on the first view after a compaction, so a manager that is never viewed holds no open file
+    private TaskJournal historyJournal;
+    private final SaveScheduler saveScheduler;
 
     public FileBackedTaskManager(File file) {
+        this(file, false);
+    }
+
+    public FileBackedTaskManager(File file, PersistencePolicy policy) {
+        this(file, false, policy);
+    }
+
+    /**
+     * Creates a manager that persists its state to the specified file.
+     * In journal mode every operation appends a single record to a journal file next to the snapshot
+     * and the snapshot itself is rewritten only when the journal is compacted.
+     * Otherwise the snapshot is rewritten after every change, while views only append to a history file.
+     * @param file snapshot file
+     * @param journaled true to append operations to a journal instead of rewriting the snapshot
+     */
+    public FileBackedTaskManager(File file, boolean journaled) {
+        this(file, journaled, PersistencePolicy.writeThrough());
+    }
+
+    /**
+     * Creates a manager that persists its state to the specified file.
+     * The policy decides whether the snapshot is written right after every operation or in the background,
+     * coalescing several operations into one write. Background writes are guaranteed only after flush() or close().
+     * @param file snapshot file
+     * @param journaled true to append operations to a journal instead of rewriting the snapshot
+     * @param policy snapshot write policy
+     */
+    public FileBackedTaskManager(File file, boolean journaled, PersistencePolicy policy) {
+        this(file, journaled, policy, SnapshotFormat.CSV);
+    }
+
+    /**
+     * Creates a manager that persists its state to the specified file in the specified format.
+     * The binary format is several times more compact and faster to write and read than CSV.
+     * @param file snapshot file
+     * @param journaled true to append operations to a journal instead of rewriting the snapshot
+     * @param policy snapshot write policy
+     * @param format snapshot file format
+     */
+    public FileBackedTaskManager(File file, boolean journaled, PersistencePolicy policy, SnapshotFormat format) {
+        this(file, journaled, policy, format, true);
+    }
+
+    private FileBackedTaskManager(File file, boolean journaled, PersistencePolicy policy, SnapshotFormat format,
+                                  boolean reset) {
         this.file = file;
+        this.format = format;
+        this.saveScheduler = new SaveScheduler(policy, this::compact, this);
+        this.journal = journaled ? new TaskJournal(journalFile(file), JOURNAL_SYNC_INTERVAL) : null;
+        this.historyJournaled = !journaled && file != null;
+        if (reset && journal != null) {
+            compact();
+        } else if (reset && historyJournaled) {
+            TaskJournal.truncate(historyFile(file));
+        }
     }
 
     @Override
-    public Epic getEpicById(int id) {
+    public synchronized Epic getEpicById(int id) {
         Epic epic = super.getEpicById(id);
-        save();
+        viewed(epic);
 
         return epic;
     }
 
     @Override
-    public Task getTaskById(int id) {
+    public synchronized Task getTaskById(int id) {
         Task task = super.getTaskById(id);
-        save();
+        viewed(task);
 
         return task;
     }
 
     @Override
-    public Subtask getSubtaskById(int id) {
+    public synchronized Subtask getSubtaskById(int id) {
         Subtask subtask = super.getSubtaskById(id);
-        save();
+        viewed(subtask);
 
         return subtask;
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        cleared(Type.EPIC);
     }
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        cleared(Type.TASK);
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
         super.deleteAllSubtasks();
-        save();
+        cleared(Type.SUBTASK);
     }
 
     @Override
-    public Epic createEpic(Epic epic) {
+    public synchronized Epic createEpic(Epic epic) {
         Epic newEpic = super.createEpic(epic);
-        save();
+        saved(newEpic);
         return newEpic;
     }
 
     @Override
-    public Task createTask(Task task) {
+    public synchronized Task createTask(Task task) {
         Task newTask = super.createTask(task);
-        save();
+        saved(newTask);
         return newTask;
     }
 
     @Override
-    public Subtask createSubtask(Subtask subtask) {
+    public synchronized Subtask createSubtask(Subtask subtask) {
         Subtask newSubtask = null;
         if (subtask != null && epics.containsKey(subtask.getEpicId())) {
             Epic epic = epics.get(subtask.getEpicId());
             newSubtask = super.createSubtaskWorker(epic, subtask);
-            save();
+            saved(newSubtask, epics.get(subtask.getEpicId()));
         }
 
         return newSubtask;
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        saved(epic == null || epic.getId() == null ? null : epics.get(epic.getId()));
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        saved(task == null || task.getId() == null ? null : tasks.get(task.getId()));
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        Subtask newSubtask = subtask == null || subtask.getId() == null ? null : subtasks.get(subtask.getId());
+        saved(newSubtask, newSubtask == null ? null : epics.get(newSubtask.getEpicId()));
     }
 
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
         super.deleteEpicById(id);
-        save();
+        deleted(Type.EPIC, id);
     }
 
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
         super.deleteTaskById(id);
-        save();
+        deleted(Type.TASK, id);
     }
 
     @Override
-    public void deleteSubtaskById(int id) {
+    public synchronized void deleteSubtaskById(int id) {
         super.deleteSubtaskById(id);
+        deleted(Type.SUBTASK, id);
+    }
+
+    /**
+     * Writes the current state to the snapshot file and truncates the journals once the snapshot is synced.
+     */
+    public synchronized void compact() {
         save();
+        if (journal != null) {
+            journal.truncate();
+        }
+        if (historyJournal != null) {
+            historyJournal.truncate();
+            historyJournal.close();
+            historyJournal = null;
+        } else if (historyJournaled) {
+            TaskJournal.truncate(historyFile(file));
+        }
+    }
+
+    /**
+     * Writes all the changes that are not saved yet and waits until they reach the storage.
+     */
+    public void flush() {
+        saveScheduler.flush();
+        synchronized (this) {
+            if (journal != null) {
+                journal.sync();
+            }
+            if (historyJournal != null) {
+                historyJournal.sync();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of snapshot writes that were avoided by coalescing them with other writes.
+     * @return the number of coalesced saves
+     */
+    public long getCoalescedSaves() {
+        return saveScheduler.getCoalescedSaves();
+    }
+
+    @Override
+    public void close() {
+        try {
+            saveScheduler.close();
+        } finally {
+            synchronized (this) {
+                if (journal != null) {
+                    journal.close();
+                }
+                if (historyJournal != null) {
+                    historyJournal.close();
+                    historyJournal = null;
+                }
+            }
+        }
+    }
+
+    protected void saved(Task... changed) {
+        if (journal == null) {
+            saveScheduler.requestSave();
+            return;
+        }
+
+        for (Task task : changed) {
+            if (task != null) {
+                journal.append(PUT + "," + taskToString(task));
+            }
+        }
+        compactIfNeeded();
+    }
+
+    protected void deleted(Type type, int id) {
+        if (journal == null) {
+            saveScheduler.requestSave();
+            return;
+        }
+
+        journal.append(DELETE + "," + type + "," + id);
+        compactIfNeeded();
+    }
+
+    protected void cleared(Type type) {
+        if (journal == null) {
+            saveScheduler.requestSave();
+            return;
+        }
+
+        journal.append(CLEAR + "," + type);
+        compactIfNeeded();
+    }
+
+    protected void viewed(Task task) {
+        if (journal == null && !historyJournaled) {
+            saveScheduler.requestSave();
+            return;
+        }
+
+        if (task == null) {
+            return;
+        }
+
+        if (journal != null) {
+            journal.append(VIEW + "," + task.getId());
+            compactIfNeeded();
+        } else {
+            if (historyJournal == null) {
+                historyJournal = new TaskJournal(historyFile(file), JOURNAL_SYNC_INTERVAL);
+            }
+            historyJournal.append(VIEW + "," + task.getId());
+            if (historyJournal.size() >= JOURNAL_COMPACTION_THRESHOLD) {
+                saveScheduler.requestSave();
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (journal.size() >= JOURNAL_COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the format the snapshot is written in.
+     * @return the snapshot format
+     */
+    public SnapshotFormat getFormat() {
+        return format;
     }
 
     protected void save() {
         Path path = file.toPath();
         if (Files.isWritable(path)) {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            List<Task> list = new ArrayList<>();
+            list.addAll(getSubtasks());
+            list.addAll(getTasks());
+            list.addAll(getEpics());
+
+            if (format == SnapshotFormat.BINARY) {
+                try {
+                    BinarySnapshot.write(tmp.toFile(), list, historyManager.getHistory());
+                } catch (IOException exception) {
+                    throw new ManagerSaveException("Can't save to file: " + file.getAbsolutePath(), exception);
+                }
+            } else {
+                saveCsv(tmp, list);
+            }
 
-            try (FileWriter fileWriter = new FileWriter(file, StandardCharsets.UTF_8, false);
-                 BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
-                List<Task> list = new ArrayList<>();
-                list.addAll(getSubtasks());
-                list.addAll(getTasks());
-                list.addAll(getEpics());
-                bufferedWriter.write(HEADER);
-                bufferedWriter.newLine();
+            try {
+                // the snapshot has to be on the disk before compact() truncates the journals it replaces
+                FileUtils.force(tmp);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                FileUtils.forceDirectory(path.toAbsolutePath().getParent());
+            } catch (IOException exception) {
+                throw new ManagerSaveException("Can't save to file: " + file.getAbsolutePath(), exception);
+            }
+        }
+    }
 
-                for (Task task : list) {
-                    bufferedWriter.write(taskToString(task));
-                    bufferedWriter.newLine();
-                }
+    private void saveCsv(Path tmp, List<Task> list) {
+        try (FileWriter fileWriter = new FileWriter(tmp.toFile(), StandardCharsets.UTF_8, false);
+             BufferedWriter bufferedWriter = new BufferedWriter(fileWriter)) {
+            bufferedWriter.write(HEADER);
+            bufferedWriter.newLine();
 
+            for (Task task : list) {
+                bufferedWriter.write(taskToString(task));
                 bufferedWriter.newLine();
-                bufferedWriter.write(historyManagerToString(historyManager));
-                bufferedWriter.newLine();
-                bufferedWriter.flush();
-
-            } catch (IOException exception) {
-                throw new ManagerSaveException(
-                        "Can't save to file: " + file.getAbsolutePath(), exception.getCause());
             }
+
+            bufferedWriter.newLine();
+            bufferedWriter.write(historyManagerToString(historyManager));
+            bufferedWriter.newLine();
+            bufferedWriter.flush();
+
+        } catch (IOException exception) {
+            throw new ManagerSaveException(
+                    "Can't save to file: " + file.getAbsolutePath(), exception.getCause());
         }
     }
 
@@ -173,66 +402,223 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     // смотри ответы в этом треде https://yandex-students.slack.com/archives/C03392E7N69/p1652367547922429
     // также наставник сказал, что .idea и проектный .iml не нужны (см. тот же тред)
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        Map<Integer, Task> allTasks = new HashMap<>();
-        Map<Integer, List<Integer>> subtasks = new HashMap<>();
+        return loadFromFile(file, false);
+    }
+
+    /**
+     * Restores a manager from the snapshot file and replays the journal next to it, if there is one.
+     * @param file snapshot file
+     * @param journaled true if the restored manager should keep appending to the journal
+     * @return restored manager
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled) {
+        return loadFromFile(file, journaled, PersistencePolicy.writeThrough());
+    }
+
+    /**
+     * Restores a manager from the snapshot file and replays the journal next to it, if there is one.
+     * The format of the snapshot is detected by its first bytes and the restored manager keeps writing in it.
+     * @param file snapshot file
+     * @param journaled true if the restored manager should keep appending to the journal
+     * @param policy snapshot write policy of the restored manager
+     * @return restored manager
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled, PersistencePolicy policy) {
+        return loadFromFile(file, journaled, policy, null);
+    }
 
-        List<String> list;
+    /**
+     * Restores a manager from the snapshot file and replays the journal next to it, if there is one.
+     * A large CSV snapshot is split into chunks of lines that are parsed in parallel on the specified pool,
+     * a binary snapshot is always read sequentially. The manager is then filled in parallel too.
+     * @param file snapshot file
+     * @param journaled true if the restored manager should keep appending to the journal
+     * @param policy snapshot write policy of the restored manager
+     * @param pool pool to parse the snapshot on or null to parse it in the calling thread
+     * @return restored manager
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled, PersistencePolicy policy,
+                                                     ForkJoinPool pool) {
+        Map<Integer, Task> allTasks = new LinkedHashMap<>();
+        Set<Integer> history = new LinkedHashSet<>();
+        SnapshotFormat format = SnapshotFormat.of(file);
         try {
-            list = Files.readAllLines(file.toPath());
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshot.read(file, allTasks, history);
+            } else if (pool != null) {
+                CsvSnapshotReader.read(file, allTasks, history, pool);
+            } else {
+                CsvSnapshotReader.read(file, allTasks, history);
+            }
         } catch (IOException exception) {
             throw new ManagerLoadException("Can't read form file: " + file.getName(), exception);
         }
 
-        if (list.isEmpty()) {
-            return manager;
+        File journalFile = journalFile(file);
+        List<String> records = TaskJournal.read(journalFile);
+        for (String record : records) {
+            replay(record, allTasks, history);
+        }
+
+        File historyFile = historyFile(file);
+        List<String> historyRecords = TaskJournal.read(historyFile);
+        for (String record : historyRecords) {
+            if (!record.startsWith(VIEW + ",")) {
+                throw new ManagerLoadException("Unsupported history record: " + record);
+            }
+            replay(record, allTasks, history);
+        }
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, journaled, policy, format, false);
+        restore(manager, allTasks, history, pool);
+
+        if (!journaled && !records.isEmpty()) {
+            manager.compact();
+            deleteJournal(journalFile);
+        } else if (journaled && !historyRecords.isEmpty()) {
+            manager.compact();
+            deleteJournal(historyFile);
         }
 
-        if (!HEADER.equals(list.get(HEADER_INDEX))) {
-            throw new ManagerLoadException("Header mismatch");
+        return manager;
+    }
+
+    private static void deleteJournal(File journalFile) {
+        try {
+            Files.delete(journalFile.toPath());
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't delete journal: " + journalFile.getAbsolutePath(), exception);
         }
+    }
 
-        for (int i = 1; i < list.size(); i++) {
-            String item = list.get(i);
-            if (item.isBlank()) {
+    /**
+     * Applies a journal record to the loaded tasks and history.
+     * @throws ManagerLoadException if the record is not supported or its id is not a number
+     */
+    private static void replay(String record, Map<Integer, Task> allTasks, Set<Integer> history) {
+        try {
+            replayRecord(record, allTasks, history);
+        } catch (NumberFormatException exception) {
+            throw new ManagerLoadException("Malformed journal record: " + record, exception);
+        }
+    }
+
+    private static void replayRecord(String record, Map<Integer, Task> allTasks, Set<Integer> history) {
+        int separator = record.indexOf(',');
+        String operation = separator < 0 ? record : record.substring(0, separator);
+        String value = separator < 0 ? "" : record.substring(separator + 1);
+
+        switch (operation) {
+            case PUT:
+                Task task = taskFromString(value);
+                if (task != null) {
+                    allTasks.put(task.getId(), task);
+                }
+                break;
+            case DELETE:
+                int id = Integer.parseInt(value.substring(value.indexOf(',') + 1).trim());
+                allTasks.remove(id);
+                history.remove(id);
                 break;
+            case CLEAR:
+                Type type = Type.valueOf(value.trim());
+                allTasks.values().removeIf(t -> t.getType() == type);
+                history.removeIf(i -> !allTasks.containsKey(i));
+                break;
+            case VIEW:
+                int viewedId = Integer.parseInt(value.trim());
+                if (allTasks.containsKey(viewedId)) {
+                    history.remove(viewedId);
+                    history.add(viewedId);
+                }
+                break;
+            default:
+                if (!record.isBlank()) {
+                    throw new ManagerLoadException("Unsupported journal record: " + record);
+                }
+        }
+    }
+
+    /**
+     * Fills the manager with the loaded tasks. The epics get their subtask ids first, then the maps by id
+     * with the status indexes, the prioritized set with the time slot index and the history are independent
+     * of each other, so with a pool they are built in parallel.
+     */
+    private static void restore(FileBackedTaskManager manager, Map<Integer, Task> allTasks, Set<Integer> history,
+                                ForkJoinPool pool) {
+        linkSubtasks(allTasks);
+        Collection<Task> values = allTasks.values();
+        Runnable indexById = () -> {
+            for (Task task : values) {
+                manager.putLoaded(task);
             }
-            Task task = taskFromString(item);
-            if (task != null) {
-                allTasks.put(task.getId(), task);
-
-                switch (task.getType()) {
-                    case SUBTASK:
-                        Subtask subtask = (Subtask) task;
-                        manager.subtasks.put(task.getId(), subtask);
-                        subtasks.putIfAbsent(subtask.getEpicId(), new ArrayList<>());
-                        subtasks.get(subtask.getEpicId()).add(subtask.getId());
-                        break;
-                    case EPIC:
-                        Epic epic = (Epic) task;
-                        if (subtasks.containsKey(epic.getId()))
-                            epic.getSubtasks().addAll(subtasks.get(epic.getId()));
-                        manager.epics.put(task.getId(), epic);
-                        break;
-                    case TASK:
-                        manager.tasks.put(task.getId(), task);
-                        break;
-                    default:
-                        System.out.println("Unsupported task type: " + task.getType());
+        };
+        Runnable prioritize = () -> {
+            for (Task task : values) {
+                if (task.getType() == SUBTASK || task.getType() == Type.TASK) {
+                    manager.addPrioritized(task);
                 }
             }
+        };
+
+        if (pool == null) {
+            indexById.run();
+            prioritize.run();
+            restoreHistory(manager, allTasks, history);
+        } else {
+            ForkJoinTask<?> byId = pool.submit(indexById);
+            ForkJoinTask<?> prioritized = pool.submit(prioritize);
+            restoreHistory(manager, allTasks, history);
+            byId.join();
+            prioritized.join();
         }
+    }
 
-        if (list.size() > 1) {
-            String history = list.get(list.size() - 1);
-            List<Integer> ids = historyManagerFromString(history);
+    /**
+     * Replaces every epic with the one that lists its subtasks, the snapshot and the journal only link
+     * a subtask to its epic. The epics are replaced in place, so the order of the tasks is kept.
+     */
+    private static void linkSubtasks(Map<Integer, Task> allTasks) {
+        Map<Integer, IntSet> subtasks = new HashMap<>();
+        for (Task task : allTasks.values()) {
+            if (task.getType() == SUBTASK) {
+                Subtask subtask = (Subtask) task;
+                subtasks.computeIfAbsent(subtask.getEpicId(), epicId -> new IntSet()).add(subtask.getId());
+            }
+        }
 
-            for (Integer id : ids) {
-                manager.historyManager.add(allTasks.get(id));
+        for (Map.Entry<Integer, IntSet> entry : subtasks.entrySet()) {
+            Task task = allTasks.get(entry.getKey());
+            if (task instanceof Epic) {
+                Epic epic = (Epic) task;
+                IntSet ids = new IntSet(epic.getSubtasks());
+                ids.addAll(entry.getValue());
+                allTasks.put(epic.getId(), Epic.create(epic.getId(), epic.getDescription(), epic.getStatus(), ids,
+                        epic.getTitle(), epic.getDuration(), epic.getStartTime()));
             }
         }
+    }
 
-        return manager;
+    private static void restoreHistory(FileBackedTaskManager manager, Map<Integer, Task> allTasks,
+                                       Set<Integer> history) {
+        int maxId = 0;
+        for (Task task : allTasks.values()) {
+            maxId = Math.max(maxId, task.getId());
+        }
+
+        for (Integer id : history) {
+            manager.historyManager.add(allTasks.get(id));
+        }
+
+        manager.setStartingId(maxId + 1);
+    }
+
+    private static File journalFile(File file) {
+        return new File(file.getPath() + JOURNAL_SUFFIX);
+    }
+
+    private static File historyFile(File file) {
+        return new File(file.getPath() + HISTORY_SUFFIX);
     }
 
     private static String historyManagerToString(HistoryManager manager) {
@@ -251,21 +637,6 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return result;
     }
 
-    private static List<Integer> historyManagerFromString(String value) {
-        List<Integer> list = new ArrayList<>();
-
-        if (value != null && !value.isBlank()) {
-            String[] values = value.split(",");
-            ArrayUtils.trimElements(values);
-
-            for (String element : values) {
-                list.add(Integer.parseInt(element));
-            }
-        }
-
-        return list;
-    }
-
     private static String taskToString(Task task) {
         String epicId = "";
 
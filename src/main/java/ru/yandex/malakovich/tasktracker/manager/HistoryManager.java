@@ -22,4 +22,21 @@ public interface HistoryManager {
      * @return a list of unique Task objects that were recently viewed.
      */
     List<Task> getHistory();
+
+    /**
+     * Returns the latest views in the order they were made, without walking the older part of the history.
+     * @param limit maximum number of tasks
+     * @return at most limit tasks that were viewed last
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    List<Task> getHistory(int limit);
+
+    /**
+     * Returns a page of the history.
+     * @param afterId id of the last task of the previous page or null for the first page
+     * @param limit maximum number of tasks
+     * @return at most limit tasks viewed after the specified one, or an empty list if it's not in the history
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    List<Task> getHistory(Integer afterId, int limit);
 }
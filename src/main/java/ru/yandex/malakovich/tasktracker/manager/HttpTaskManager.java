@@ -1,75 +1,265 @@
 package ru.yandex.malakovich.tasktracker.manager;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import ru.yandex.malakovich.tasktracker.KVTaskClient;
 import ru.yandex.malakovich.tasktracker.model.Epic;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.Managers;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
+/**
+ * Task manager that keeps every task, epic and subtask under its own key of a KVServer,
+ * e.g. task/1, epic/2 and subtask/3. The manifest key lists the ids of the stored entities,
+ * and history/{id} holds the sequence number of the last view of an entity, so the history order can be restored.
+ * A change sends only the entities it touched, the manifest is sent only when entities are created or deleted.
+ */
 public class HttpTaskManager extends FileBackedTaskManager {
+    public static final String MANIFEST_KEY = "manifest";
+    public static final String HISTORY_PREFIX = "history/";
     private final KVTaskClient kvClient;
-    private final Gson gson = new Gson();
+    private final Gson gson = Managers.getGson();
+    private final Map<Type, Set<Integer>> stored = new EnumMap<>(Type.class);
+    private final Set<Integer> storedHistory = new HashSet<>();
+    private final Map<Type, Set<Integer>> changed = new EnumMap<>(Type.class);
+    private final Map<Integer, Long> viewed = new LinkedHashMap<>();
+    private long viewSequence;
 
     public HttpTaskManager(String host) {
         this(host, false);
     }
 
     public HttpTaskManager(String host, boolean needLoad) {
-        super(null);
+        this(host, needLoad, PersistencePolicy.writeThrough());
+    }
+
+    public HttpTaskManager(String host, boolean needLoad, PersistencePolicy policy) {
+        super(null, false, policy);
+        for (Type type : Type.values()) {
+            stored.put(type, new TreeSet<>());
+            changed.put(type, new LinkedHashSet<>());
+        }
         kvClient = new KVTaskClient(host);
         if (needLoad) load();
     }
 
-    public void load() {
-        String tasksList = kvClient.load("tasks");
-        String subtasksList = kvClient.load("subtasks");
-        String epicsList = kvClient.load("epics");
-        String historyList = kvClient.load("history");
+    /**
+     * Restores the state in two round trips: one for the manifest and one for all the entities and their history.
+     */
+    public synchronized void load() {
+        Manifest manifest = gson.fromJson(kvClient.load(MANIFEST_KEY), Manifest.class);
+        if (manifest == null) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        addKeys(keys, Type.TASK, manifest.tasks);
+        addKeys(keys, Type.EPIC, manifest.epics);
+        addKeys(keys, Type.SUBTASK, manifest.subtasks);
+        Map<String, String> values = kvClient.loadAll(keys);
+
+        Map<Integer, Task> all = new LinkedHashMap<>();
+        addLoaded(values, Type.TASK, manifest.tasks, Task.class, all);
+        addLoaded(values, Type.EPIC, manifest.epics, Epic.class, all);
+        addLoaded(values, Type.SUBTASK, manifest.subtasks, Subtask.class, all);
+
+        Map<Long, Integer> history = new TreeMap<>();
+        for (int id : all.keySet()) {
+            String sequence = values.get(HISTORY_PREFIX + id);
+            if (sequence != null) {
+                history.put(Long.parseLong(sequence), id);
+                storedHistory.add(id);
+            }
+        }
+        history.values().stream().map(all::get).forEach(this.historyManager::add);
+        history.keySet().stream().max(Long::compare).ifPresent(sequence -> viewSequence = sequence);
+
+        all.keySet().stream().max(Integer::compare).ifPresent(id -> setStartingId(id + 1));
+
+        for (Task task : all.values()) {
+            putLoaded(task);
+            if (task.getType() != Type.EPIC) {
+                addPrioritized(task);
+            }
+        }
+    }
+
+    /**
+     * Sends the entities and history positions changed since the previous save in a single round trip.
+     * The changes are forgotten only after the request succeeds, so a failed save is repeated by the next one.
+     */
+    @Override
+    public synchronized void save() {
+        Map<String, String> updates = new LinkedHashMap<>();
+        Map<Type, Set<Integer>> added = new EnumMap<>(Type.class);
+        Map<Type, Set<Integer>> removed = new EnumMap<>(Type.class);
+        Set<Integer> removedIds = new HashSet<>();
+        Set<Integer> addedIds = new HashSet<>();
+        Set<Integer> viewedIds = new HashSet<>();
+
+        for (Map.Entry<Type, Set<Integer>> entry : changed.entrySet()) {
+            Type type = entry.getKey();
+            added.put(type, new HashSet<>());
+            removed.put(type, new HashSet<>());
+            for (int id : entry.getValue()) {
+                Task task = find(type, id);
+                if (task != null) {
+                    updates.put(key(type, id), gson.toJson(task));
+                    if (!stored.get(type).contains(id)) {
+                        added.get(type).add(id);
+                        addedIds.add(id);
+                    }
+                } else if (stored.get(type).contains(id)) {
+                    updates.put(key(type, id), null);
+                    if (storedHistory.contains(id)) {
+                        updates.put(HISTORY_PREFIX + id, null);
+                    }
+                    removed.get(type).add(id);
+                    removedIds.add(id);
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Long> entry : viewed.entrySet()) {
+            int id = entry.getKey();
+            if (addedIds.contains(id) || isStored(id) && !removedIds.contains(id)) {
+                updates.put(HISTORY_PREFIX + id, String.valueOf(entry.getValue()));
+                viewedIds.add(id);
+            }
+        }
 
-        List<Task> tasks = gson.fromJson(tasksList, new TypeToken<ArrayList<Task>>(){}.getType());
-        List<Subtask> subtasks = gson.fromJson(subtasksList, new TypeToken<ArrayList<Subtask>>(){}.getType());
-        List<Epic> epics = gson.fromJson(epicsList, new TypeToken<ArrayList<Epic>>(){}.getType());
+        if (!addedIds.isEmpty() || !removedIds.isEmpty()) {
+            Map<Type, Set<Integer>> next = new EnumMap<>(Type.class);
+            for (Type type : Type.values()) {
+                Set<Integer> ids = new TreeSet<>(stored.get(type));
+                ids.addAll(added.get(type));
+                ids.removeAll(removed.get(type));
+                next.put(type, ids);
+            }
+            updates.put(MANIFEST_KEY, gson.toJson(new Manifest(next)));
+        }
+        if (!updates.isEmpty()) {
+            kvClient.putAll(updates);
+        }
+
+        for (Type type : Type.values()) {
+            stored.get(type).addAll(added.get(type));
+            stored.get(type).removeAll(removed.get(type));
+            changed.get(type).clear();
+        }
+        storedHistory.removeAll(removedIds);
+        storedHistory.addAll(viewedIds);
+        viewed.clear();
+    }
 
-        Map<Integer, Task> all = Stream
-                .concat(tasks.stream(), Stream.concat(subtasks.stream(), epics.stream()))
-                .collect(Collectors.toMap(Task::getId, Function.identity()));
-        List<Integer> history = gson.fromJson(historyList, new TypeToken<ArrayList<Integer>>(){}.getType());
-        history.stream().map(all::get).forEach(this.historyManager::add);
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            changed.get(Type.EPIC).add(subtask.getEpicId());
+        }
+        super.deleteSubtaskById(id);
+    }
+
+    @Override
+    protected void saved(Task... tasks) {
+        for (Task task : tasks) {
+            if (task != null) {
+                changed.get(task.getType()).add(task.getId());
+            }
+        }
+        super.saved(tasks);
+    }
 
-        all.keySet().stream().max(Integer::compare).ifPresent(this::setStartingId);
+    @Override
+    protected void deleted(Type type, int id) {
+        changed.get(type).add(id);
+        super.deleted(type, id);
+    }
 
-        tasks.forEach(task -> this.tasks.put(task.getId(), task));
-        subtasks.forEach(subtask -> this.subtasks.put(subtask.getId(), subtask));
-        epics.forEach(epic -> this.epics.put(epic.getId(), epic));
-        this.prioritizedTasks.addAll(tasks);
-        this.prioritizedTasks.addAll(subtasks);
+    @Override
+    protected void cleared(Type type) {
+        changed.get(type).addAll(stored.get(type));
+        if (type == Type.EPIC) {
+            changed.get(Type.SUBTASK).addAll(stored.get(Type.SUBTASK));
+        }
+        super.cleared(type);
     }
 
     @Override
-    public void save() {
-        List<Task> tasks = getTasks();
-        List<Subtask> subtasks = getSubtasks();
-        List<Epic> epics = getEpics();
-        List<Integer> history = history().stream().map(Task::getId).collect(Collectors.toList());
-
-        String tasksList = gson.toJson(tasks);
-        String subtasksList = gson.toJson(subtasks);
-        String epicsList = gson.toJson(epics);
-        String historyList = gson.toJson(history);
-
-        kvClient.put("tasks", tasksList);
-        kvClient.put("subtasks", subtasksList);
-        kvClient.put("epics", epicsList);
-        kvClient.put("history", historyList);
+    protected void viewed(Task task) {
+        if (task != null) {
+            viewed.remove(task.getId());
+            viewed.put(task.getId(), ++viewSequence);
+        }
+        super.viewed(task);
+    }
+
+    private static void addKeys(List<String> keys, Type type, Set<Integer> ids) {
+        for (int id : ids) {
+            keys.add(key(type, id));
+            keys.add(HISTORY_PREFIX + id);
+        }
+    }
+
+    private <T extends Task> void addLoaded(Map<String, String> values, Type type, Set<Integer> ids,
+                                            Class<T> taskClass, Map<Integer, Task> all) {
+        for (int id : ids) {
+            String json = values.get(key(type, id));
+            if (json != null) {
+                all.put(id, gson.fromJson(json, taskClass));
+                stored.get(type).add(id);
+            }
+        }
+    }
+
+    private Task find(Type type, int id) {
+        switch (type) {
+            case TASK:
+                return tasks.get(id);
+            case EPIC:
+                return epics.get(id);
+            case SUBTASK:
+                return subtasks.get(id);
+            default:
+                return null;
+        }
+    }
+
+    private boolean isStored(int id) {
+        for (Set<Integer> ids : stored.values()) {
+            if (ids.contains(id)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String key(Type type, int id) {
+        return type.name().toLowerCase() + "/" + id;
+    }
+
+    private static class Manifest {
+        private final Set<Integer> tasks;
+        private final Set<Integer> epics;
+        private final Set<Integer> subtasks;
+
+        private Manifest(Map<Type, Set<Integer>> stored) {
+            this.tasks = stored.get(Type.TASK);
+            this.epics = stored.get(Type.EPIC);
+            this.subtasks = stored.get(Type.SUBTASK);
+        }
     }
 }
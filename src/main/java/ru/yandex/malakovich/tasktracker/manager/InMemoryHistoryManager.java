@@ -2,16 +2,56 @@ package ru.yandex.malakovich.tasktracker.manager;
 
 import ru.yandex.malakovich.tasktracker.model.Task;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+/**
+ * History as a linked list of views with a map from task id to its node, so a view and a removal take O(1).
+ * When the history grows over its capacity the oldest view is evicted. With a time to live, views older than it
+ * are evicted as well: a view moves its node to the tail, so the expired nodes are always at the head
+ * and they are dropped from there before every read and write.
+ */
 public class InMemoryHistoryManager implements HistoryManager {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
     private Node head;
     private Node tail;
     private final Map<Integer, Node> map = new HashMap<>();
+    private final int capacity;
+    private final long timeToLiveMillis;
+    private final Clock clock;
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    /**
+     * Creates a history that keeps at most the specified number of the latest views.
+     * @param capacity maximum number of tasks in the history
+     */
+    public InMemoryHistoryManager(int capacity) {
+        this(capacity, null, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a history that keeps at most the specified number of the latest views, none older than timeToLive.
+     * @param capacity maximum number of tasks in the history
+     * @param timeToLive time after which a view expires or null if views don't expire
+     * @param clock clock to timestamp the views with
+     */
+    public InMemoryHistoryManager(int capacity, Duration timeToLive, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.timeToLiveMillis = timeToLive == null ? 0 : timeToLive.toMillis();
+        this.clock = Objects.requireNonNull(clock);
+    }
 
     @Override
     public void remove(Task task) {
@@ -24,23 +64,83 @@ public class InMemoryHistoryManager implements HistoryManager {
     @Override
     public void add(Task task) {
         if (task != null) {
+            long now = timeToLiveMillis > 0 ? clock.millis() : 0;
+            evictExpired(now);
             if (map.containsKey(task.getId())) {
                 Node node = map.get(task.getId());
                 removeNode(node);
             }
 
-            linkLast(task);
+            linkLast(task, now);
             map.put(task.getId(), tail);
+            if (map.size() > capacity) {
+                evictHead();
+            }
         }
     }
 
     @Override
     public List<Task> getHistory() {
+        evictExpired();
         return getTasks();
     }
 
-    private void linkLast(Task task) {
-        Node newNode = new Node(tail, task, null);
+    @Override
+    public List<Task> getHistory(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative history limit: " + limit);
+        }
+        evictExpired();
+        Task[] latest = new Task[Math.min(limit, map.size())];
+        Node node = tail;
+        for (int i = latest.length - 1; i >= 0; i--) {
+            latest[i] = node.getData();
+            node = node.getPrev();
+        }
+
+        return new ArrayList<>(Arrays.asList(latest));
+    }
+
+    @Override
+    public List<Task> getHistory(Integer afterId, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative history limit: " + limit);
+        }
+        evictExpired();
+        List<Task> taskList = new ArrayList<>();
+        Node node = head;
+        if (afterId != null) {
+            node = map.containsKey(afterId) ? map.get(afterId).getNext() : null;
+        }
+
+        while (Objects.nonNull(node) && taskList.size() < limit) {
+            taskList.add(node.getData());
+            node = node.getNext();
+        }
+
+        return taskList;
+    }
+
+    private void evictExpired() {
+        if (timeToLiveMillis > 0) {
+            evictExpired(clock.millis());
+        }
+    }
+
+    private void evictExpired(long now) {
+        while (timeToLiveMillis > 0 && head != null && now - head.getViewedAt() >= timeToLiveMillis) {
+            evictHead();
+        }
+    }
+
+    private void evictHead() {
+        Node node = head;
+        map.remove(node.getData().getId());
+        removeNode(node);
+    }
+
+    private void linkLast(Task task, long viewedAt) {
+        Node newNode = new Node(tail, task, null, viewedAt);
 
         if (Objects.isNull(head)) {
             head = newNode;
@@ -87,19 +187,25 @@ public class InMemoryHistoryManager implements HistoryManager {
 
     private static class Node {
         private final Task data;
+        private final long viewedAt;
         private Node next;
         private Node prev;
 
-        Node(Node prev, Task data, Node next) {
+        Node(Node prev, Task data, Node next, long viewedAt) {
             this.data = data;
             this.next = next;
             this.prev = prev;
+            this.viewedAt = viewedAt;
         }
 
         Task getData() {
             return data;
         }
 
+        long getViewedAt() {
+            return viewedAt;
+        }
+
         Node getNext() {
             return next;
         }
@@ -1,17 +1,19 @@
 package ru.yandex.malakovich.tasktracker.manager;
 
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+import ru.yandex.malakovich.tasktracker.util.IntSortedMap;
 import ru.yandex.malakovich.tasktracker.util.ManagerUtils;
 import ru.yandex.malakovich.tasktracker.util.Managers;
 import ru.yandex.malakovich.tasktracker.util.TaskUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -20,11 +22,17 @@ public class InMemoryTaskManager implements TaskManager {
     // Наставник Сергей Савельев сказал, что их нужно оставить protected,
     // смотри ответы в этом треде https://yandex-students.slack.com/archives/C03392E7N69/p1652367547922429
     // также наставник сказал, что .idea и проектный .iml не нужны (см. тот же тред)
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final IntSortedMap<Epic> epics = new IntSortedMap<>();
+    protected final IntSortedMap<Task> tasks = new IntSortedMap<>();
+    protected final IntSortedMap<Subtask> subtasks = new IntSortedMap<>();
     protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    protected final Set<Task> prioritizedTasks = new TreeSet<>(TaskUtils.START_TIME_TASK_COMPARATOR);
+    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(TaskUtils.START_TIME_TASK_COMPARATOR);
+    protected final TimeSlotIndex timeSlots = new TimeSlotIndex();
+    private final StatusIndex<Epic> epicsByStatus = new StatusIndex<>();
+    private final StatusIndex<Task> tasksByStatus = new StatusIndex<>();
+    private final StatusIndex<Subtask> subtasksByStatus = new StatusIndex<>();
+    private final IntSortedMap<EpicAggregate> epicAggregates = new IntSortedMap<>();
+    private final VersionCounter versions = new VersionCounter();
 
     @Override
     public List<Epic> getEpics() {
@@ -46,6 +54,41 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks);
     }
 
+    @Override
+    public List<Epic> getEpics(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? epics.values() : epics.tailValues(afterId), limit);
+    }
+
+    @Override
+    public List<Task> getTasks(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? tasks.values() : tasks.tailValues(afterId), limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Integer afterId, int limit) {
+        return ManagerUtils.page(afterId == null ? subtasks.values() : subtasks.tailValues(afterId), limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksList(Task after, int limit) {
+        return ManagerUtils.page(after == null ? prioritizedTasks : prioritizedTasks.tailSet(after, false), limit);
+    }
+
+    @Override
+    public List<Epic> getEpics(Status status, Integer afterId, int limit) {
+        return epicsByStatus.page(status, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getTasks(Status status, Integer afterId, int limit) {
+        return tasksByStatus.page(status, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(Status status, Integer afterId, int limit) {
+        return subtasksByStatus.page(status, afterId, limit);
+    }
+
     public int getNextId() {
         return id++;
     }
@@ -54,31 +97,83 @@ public class InMemoryTaskManager implements TaskManager {
         this.id = id;
     }
 
+    /**
+     * Puts a loaded task into the map of its type and the status index, without validation or versioning.
+     * @param task task restored from storage
+     */
+    protected void putLoaded(Task task) {
+        switch (task.getType()) {
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                subtasksByStatus.replace(subtasks.put(subtask.getId(), subtask), subtask);
+                break;
+            case EPIC:
+                Epic epic = (Epic) task;
+                epicsByStatus.replace(epics.put(epic.getId(), epic), epic);
+                break;
+            case TASK:
+                tasksByStatus.replace(tasks.put(task.getId(), task), task);
+                break;
+            default:
+                System.out.println("Unsupported task type: " + task.getType());
+        }
+    }
+
+    protected void addPrioritized(Task task) {
+        prioritizedTasks.add(task);
+        timeSlots.add(task);
+    }
+
+    protected void removePrioritized(Task task) {
+        prioritizedTasks.remove(task);
+        timeSlots.remove(task);
+    }
+
     @Override
     public void deleteAllEpics() {
+        boolean empty = epics.isEmpty();
         for (Epic epic : epics.values()) {
             historyManager.remove(epic);
         }
         epics.clear();
+        epicsByStatus.clear();
+        epicAggregates.clear();
+        if (!empty) {
+            versions.changed(Type.EPIC);
+            versions.historyChanged();
+        }
         deleteAllSubtasks();
     }
 
     @Override
     public void deleteAllTasks() {
+        boolean empty = tasks.isEmpty();
         for (Task task : tasks.values()) {
             historyManager.remove(task);
-            prioritizedTasks.remove(task);
+            removePrioritized(task);
         }
         tasks.clear();
+        tasksByStatus.clear();
+        if (!empty) {
+            versions.changed(Type.TASK);
+            versions.historyChanged();
+        }
     }
 
     @Override
     public void deleteAllSubtasks() {
+        boolean empty = subtasks.isEmpty();
         for (Subtask subtask : subtasks.values()) {
             historyManager.remove(subtask);
-            prioritizedTasks.remove(subtask);
+            removePrioritized(subtask);
         }
         subtasks.clear();
+        subtasksByStatus.clear();
+        epicAggregates.clear();
+        if (!empty) {
+            versions.changed(Type.SUBTASK);
+            versions.historyChanged();
+        }
     }
 
     @Override
@@ -86,6 +181,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epics.containsKey(id)) {
             Epic epic = epics.get(id);
             historyManager.add(epic);
+            versions.historyChanged();
 
             return epic;
         } else {
@@ -100,6 +196,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (tasks.containsKey(id)) {
             Task task = tasks.get(id);
             historyManager.add(task);
+            versions.historyChanged();
 
             return task;
         } else {
@@ -114,6 +211,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtasks.containsKey(id)) {
             Subtask subtask = subtasks.get(id);
             historyManager.add(subtask);
+            versions.historyChanged();
 
             return subtask;
         } else {
@@ -129,7 +227,8 @@ public class InMemoryTaskManager implements TaskManager {
         Epic newEpic = null;
         if (epic != null) {
             newEpic = epic.getId() == null ? epic.withId(getNextId()) : epic;
-            epics.put(newEpic.getId(), newEpic);
+            epicsByStatus.replace(epics.put(newEpic.getId(), newEpic), newEpic);
+            versions.changed(Type.EPIC);
         }
 
         return newEpic;
@@ -139,10 +238,11 @@ public class InMemoryTaskManager implements TaskManager {
     public Task createTask(Task task) {
         Task newTask = null;
         if (task != null) {
-            ManagerUtils.validateTime(task, prioritizedTasks);
+            timeSlots.validate(task);
             newTask = task.getId() == null ? task.withId(getNextId()) : task;
-            prioritizedTasks.add(newTask);
-            tasks.put(newTask.getId(), newTask);
+            addPrioritized(newTask);
+            tasksByStatus.replace(tasks.put(newTask.getId(), newTask), newTask);
+            versions.changed(Type.TASK);
         }
 
         return newTask;
@@ -162,14 +262,18 @@ public class InMemoryTaskManager implements TaskManager {
     protected Subtask createSubtaskWorker(Epic oldEpic, Subtask subtask) {
         Subtask newSubtask = null;
         if (oldEpic != null) {
-            ManagerUtils.validateTime(subtask, prioritizedTasks);
+            timeSlots.validate(subtask);
             newSubtask = subtask.getId() == null ? subtask.withId(getNextId()) : subtask;
-            prioritizedTasks.add(newSubtask);
-            subtasks.put(newSubtask.getId(), newSubtask);
-            Set<Subtask> newSubtasks = new HashSet<>(getEpicSubtasks(oldEpic));
-            newSubtasks.add(newSubtask);
-            Epic epic = Epic.create(oldEpic.getId(), oldEpic.getDescription(), newSubtasks, oldEpic.getTitle());
-            epics.replace(epic.getId(), epic);
+            addPrioritized(newSubtask);
+            EpicAggregate aggregate = aggregateOf(oldEpic);
+            subtasksByStatus.replace(subtasks.put(newSubtask.getId(), newSubtask), newSubtask);
+            aggregate.add(newSubtask);
+            Epic newEpic = aggregate.toEpic(oldEpic);
+            if (epics.replace(oldEpic.getId(), newEpic) != null) {
+                epicsByStatus.replace(oldEpic, newEpic);
+            }
+            versions.changed(Type.SUBTASK);
+            versions.changed(Type.EPIC);
         }
 
         return newSubtask;
@@ -177,28 +281,33 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epic != null) {
-            epics.replace(epic.getId(), epic);
+        Epic oldEpic = epic == null || epic.getId() == null ? null : epics.replace(epic.getId(), epic);
+        if (oldEpic != null) {
+            epicsByStatus.replace(oldEpic, epic);
+            versions.changed(Type.EPIC);
         }
     }
 
     @Override
     public void updateTask(Task task) {
-        if (task != null) {
-            ManagerUtils.validateTime(task, prioritizedTasks);
+        if (task != null && task.getId() != null) {
+            timeSlots.validate(task);
             Task oldTask = tasks.get(task.getId());
             if (oldTask != null) {
-                prioritizedTasks.remove(oldTask);
-                prioritizedTasks.add(task);
+                removePrioritized(oldTask);
+                addPrioritized(task);
+            }
+            if (tasks.replace(task.getId(), task) != null) {
+                tasksByStatus.replace(oldTask, task);
+                versions.changed(Type.TASK);
             }
-            tasks.replace(task.getId(), task);
         }
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtask != null) {
-            ManagerUtils.validateTime(subtask, prioritizedTasks);
+        if (subtask != null && subtask.getId() != null) {
+            timeSlots.validate(subtask);
             Subtask oldSubtask = getSubtaskById(subtask.getId());
             if (oldSubtask != null) {
                 deleteSubtaskById(oldSubtask.getId());
@@ -215,7 +324,10 @@ public class InMemoryTaskManager implements TaskManager {
                 deleteSubtaskById(i);
             }
             historyManager.remove(epic);
-            epics.remove(id);
+            epicsByStatus.remove(epics.remove(id));
+            epicAggregates.remove(id);
+            versions.changed(Type.EPIC);
+            versions.historyChanged();
         }
     }
 
@@ -223,9 +335,11 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteTaskById(int id) {
         if (tasks.containsKey(id)) {
             Task task = tasks.get(id);
-            prioritizedTasks.remove(task);
+            removePrioritized(task);
             historyManager.remove(task);
-            tasks.remove(id);
+            tasksByStatus.remove(tasks.remove(id));
+            versions.changed(Type.TASK);
+            versions.historyChanged();
         } else {
             System.out.println("Could not delete task, id=" + id);
         }
@@ -237,13 +351,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask != null) {
             Epic oldEpic = getEpicById(subtask.getEpicId());
             if (oldEpic != null) {
-                Set<Subtask> newSubtasks = new HashSet<>(getEpicSubtasks(oldEpic));
-                newSubtasks.remove(subtask);
-                Epic epic = Epic.create(oldEpic.getId(), oldEpic.getDescription(), newSubtasks, oldEpic.getTitle());
-                updateEpic(epic);
-                prioritizedTasks.remove(subtask);
+                EpicAggregate aggregate = aggregateOf(oldEpic);
+                aggregate.remove(subtask);
+                updateEpic(aggregate.toEpic(oldEpic));
+                removePrioritized(subtask);
                 historyManager.remove(subtask);
-                subtasks.remove(id);
+                subtasksByStatus.remove(subtasks.remove(id));
+                versions.changed(Type.SUBTASK);
+                versions.historyChanged();
             }
         }
     }
@@ -265,4 +380,39 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Task> history() {
         return historyManager.getHistory();
     }
+
+    @Override
+    public List<Task> history(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    @Override
+    public List<Task> history(Integer afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Type type) {
+        return versions.get(type);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.getHistory();
+    }
+
+    private EpicAggregate aggregateOf(Epic epic) {
+        EpicAggregate aggregate = epicAggregates.get(epic.getId());
+        if (aggregate == null || !aggregate.isFor(epic)) {
+            aggregate = EpicAggregate.of(epic, subtasks::get);
+            epicAggregates.put(epic.getId(), aggregate);
+        }
+
+        return aggregate;
+    }
 }
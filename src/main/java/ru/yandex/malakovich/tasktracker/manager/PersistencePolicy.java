@@ -0,0 +1,94 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import java.util.Objects;
+
+/**
+ * Describes when a file backed manager writes its snapshot.
+ */
+public final class PersistencePolicy {
+    public enum Mode {
+        WRITE_THROUGH,
+        DEBOUNCED,
+        EVERY_N_OPERATIONS
+    }
+
+    private static final PersistencePolicy WRITE_THROUGH = new PersistencePolicy(Mode.WRITE_THROUGH, 0, 1);
+
+    private final Mode mode;
+    private final long delayMillis;
+    private final int operations;
+
+    private PersistencePolicy(Mode mode, long delayMillis, int operations) {
+        this.mode = mode;
+        this.delayMillis = delayMillis;
+        this.operations = operations;
+    }
+
+    /**
+     * Returns a policy that writes the snapshot synchronously after every operation.
+     * @return write-through policy
+     */
+    public static PersistencePolicy writeThrough() {
+        return WRITE_THROUGH;
+    }
+
+    /**
+     * Returns a policy that coalesces all the operations made within the specified delay into one write.
+     * @param delayMillis delay between the first unsaved operation and the write, in milliseconds
+     * @return debounced policy
+     */
+    public static PersistencePolicy debounced(long delayMillis) {
+        if (delayMillis <= 0) {
+            throw new IllegalArgumentException("Delay should be positive: " + delayMillis);
+        }
+
+        return new PersistencePolicy(Mode.DEBOUNCED, delayMillis, 0);
+    }
+
+    /**
+     * Returns a policy that writes the snapshot once per the specified number of operations.
+     * @param operations number of operations coalesced into one write
+     * @return every-N-operations policy
+     */
+    public static PersistencePolicy everyOperations(int operations) {
+        if (operations <= 0) {
+            throw new IllegalArgumentException("Number of operations should be positive: " + operations);
+        }
+
+        return new PersistencePolicy(Mode.EVERY_N_OPERATIONS, 0, operations);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public int getOperations() {
+        return operations;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PersistencePolicy that = (PersistencePolicy) o;
+        return delayMillis == that.delayMillis && operations == that.operations && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, delayMillis, operations);
+    }
+
+    @Override
+    public String toString() {
+        return "PersistencePolicy{" +
+                "mode=" + mode +
+                ", delayMillis=" + delayMillis +
+                ", operations=" + operations +
+                '}';
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.ManagerSaveException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the save requests of a manager turn into actual writes, according to a PersistencePolicy.
+ * Deferred writes run on a single background thread while holding the manager lock,
+ * so they never observe a half-applied operation.
+ */
+public class SaveScheduler implements AutoCloseable {
+    private final PersistencePolicy policy;
+    private final Runnable save;
+    private final Object lock;
+    private final ScheduledExecutorService writer;
+    private ScheduledFuture<?> scheduled;
+    private int pending;
+    private long requested;
+    private long written;
+    private RuntimeException failure;
+
+    public SaveScheduler(PersistencePolicy policy, Runnable save, Object lock) {
+        this.policy = policy;
+        this.save = save;
+        this.lock = lock;
+        this.writer = policy.getMode() == PersistencePolicy.Mode.WRITE_THROUGH
+                ? null
+                : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "task-manager-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void requestSave() {
+        synchronized (lock) {
+            requested++;
+            pending++;
+
+            switch (policy.getMode()) {
+                case WRITE_THROUGH:
+                    write();
+                    break;
+                case DEBOUNCED:
+                    if (scheduled == null) {
+                        scheduled = writer.schedule(this::writeInBackground, policy.getDelayMillis(),
+                                TimeUnit.MILLISECONDS);
+                    }
+                    break;
+                case EVERY_N_OPERATIONS:
+                    if (pending >= policy.getOperations() && scheduled == null) {
+                        scheduled = writer.schedule(this::writeInBackground, 0, TimeUnit.MILLISECONDS);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Writes all the pending changes and waits until they are saved.
+     */
+    public void flush() {
+        if (writer != null && !writer.isShutdown()) {
+            try {
+                writer.submit(this::writeInBackground).get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Interrupted while flushing", exception);
+            } catch (ExecutionException exception) {
+                throw new ManagerSaveException("Can't flush", exception.getCause());
+            }
+        }
+
+        synchronized (lock) {
+            if (pending > 0) {
+                write();
+            }
+            if (failure != null) {
+                RuntimeException exception = failure;
+                failure = null;
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of save requests that were merged into another write instead of being written separately.
+     * @return the number of coalesced saves
+     */
+    public long getCoalescedSaves() {
+        synchronized (lock) {
+            return requested - pending - written;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            if (writer != null) {
+                writer.shutdown();
+            }
+        }
+    }
+
+    private void writeInBackground() {
+        synchronized (lock) {
+            scheduled = null;
+            if (pending == 0) {
+                return;
+            }
+
+            try {
+                write();
+            } catch (RuntimeException exception) {
+                failure = exception;
+            }
+        }
+    }
+
+    private void write() {
+        save.run();
+        pending = 0;
+        written++;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.ManagerLoadException;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Format of the snapshot file of a FileBackedTaskManager.
+ */
+public enum SnapshotFormat {
+    /**
+     * Human-readable lines of comma-separated fields, see FileBackedTaskManager.HEADER.
+     */
+    CSV,
+    /**
+     * Versioned blocks of length-prefixed binary records with a CRC per block, see BinarySnapshot.
+     */
+    BINARY;
+
+    /**
+     * Returns the format of the snapshot file by its first bytes, an empty or missing file is CSV.
+     * @param file snapshot file
+     * @return the format of the file
+     */
+    public static SnapshotFormat of(File file) {
+        if (!file.exists()) {
+            return CSV;
+        }
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == BinarySnapshot.MAGIC ? BINARY : CSV;
+        } catch (EOFException exception) {
+            return CSV;
+        } catch (IOException exception) {
+            throw new ManagerLoadException("Can't read form file: " + file.getName(), exception);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.ManagerUtils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary index of the tasks of one type by status. Every status keeps its own map of tasks by id,
+ * so a page of the tasks with a status costs O(log n + page) instead of a scan over all the tasks.
+ * Tasks without a status are not indexed.
+ * <p>
+ * The maps are trees rather than IntSortedMaps: a task changing its status usually lands in the middle
+ * of the other status' ids, which would cost a shift of the greater ids instead of O(log n).
+ */
+final class StatusIndex<T extends Task> {
+    private final Map<Status, NavigableMap<Integer, T>> byStatus = new EnumMap<>(Status.class);
+
+    StatusIndex() {
+        for (Status status : Status.values()) {
+            byStatus.put(status, new TreeMap<>());
+        }
+    }
+
+    void add(T task) {
+        if (task.getStatus() != null) {
+            byStatus.get(task.getStatus()).put(task.getId(), task);
+        }
+    }
+
+    void remove(T task) {
+        if (task != null && task.getStatus() != null) {
+            byStatus.get(task.getStatus()).remove(task.getId());
+        }
+    }
+
+    /**
+     * Replaces the previous version of a task, which may have another status, with the next one.
+     * @param previous previous version of the task or null if it is new
+     * @param next next version of the task
+     */
+    void replace(T previous, T next) {
+        remove(previous);
+        add(next);
+    }
+
+    void clear() {
+        for (NavigableMap<Integer, T> tasks : byStatus.values()) {
+            tasks.clear();
+        }
+    }
+
+    /**
+     * Returns a page of the tasks with the specified status ordered by id.
+     * @param status status of the tasks
+     * @param afterId id of the last task of the previous page or null for the first page
+     * @param limit maximum number of tasks
+     * @return at most limit tasks with the status and ids greater than afterId
+     */
+    List<T> page(Status status, Integer afterId, int limit) {
+        NavigableMap<Integer, T> tasks = byStatus.get(status);
+        return ManagerUtils.page(afterId == null ? tasks.values() : tasks.tailMap(afterId, false).values(), limit);
+    }
+}
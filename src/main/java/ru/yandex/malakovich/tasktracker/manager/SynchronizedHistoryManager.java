@@ -0,0 +1,42 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Thread-safe view of another history manager, every call is made while holding a single lock.
+ */
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    public SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = Objects.requireNonNull(historyManager);
+    }
+
+    @Override
+    public synchronized void remove(Task task) {
+        historyManager.remove(task);
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(Integer afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Thread-safe view of another task manager, every call is made while holding a single lock.
+ */
+public class SynchronizedTaskManager implements TaskManager {
+    private final TaskManager taskManager;
+
+    public SynchronizedTaskManager(TaskManager taskManager) {
+        this.taskManager = Objects.requireNonNull(taskManager);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return taskManager.getEpics();
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return taskManager.getTasks();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return taskManager.getSubtasks();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasksList() {
+        return taskManager.getPrioritizedTasksList();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics(Integer afterId, int limit) {
+        return taskManager.getEpics(afterId, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasks(Integer afterId, int limit) {
+        return taskManager.getTasks(afterId, limit);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks(Integer afterId, int limit) {
+        return taskManager.getSubtasks(afterId, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasksList(Task after, int limit) {
+        return taskManager.getPrioritizedTasksList(after, limit);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics(Status status, Integer afterId, int limit) {
+        return taskManager.getEpics(status, afterId, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasks(Status status, Integer afterId, int limit) {
+        return taskManager.getTasks(status, afterId, limit);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks(Status status, Integer afterId, int limit) {
+        return taskManager.getSubtasks(status, afterId, limit);
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        taskManager.deleteAllEpics();
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        taskManager.deleteAllTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        taskManager.deleteAllSubtasks();
+    }
+
+    @Override
+    public synchronized Epic getEpicById(int id) {
+        return taskManager.getEpicById(id);
+    }
+
+    @Override
+    public synchronized Task getTaskById(int id) {
+        return taskManager.getTaskById(id);
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(int id) {
+        return taskManager.getSubtaskById(id);
+    }
+
+    @Override
+    public synchronized Epic createEpic(Epic epic) {
+        return taskManager.createEpic(epic);
+    }
+
+    @Override
+    public synchronized Task createTask(Task task) {
+        return taskManager.createTask(task);
+    }
+
+    @Override
+    public synchronized Subtask createSubtask(Subtask subtask) {
+        return taskManager.createSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        taskManager.updateEpic(epic);
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        taskManager.updateTask(task);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        taskManager.updateSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void deleteEpicById(int id) {
+        taskManager.deleteEpicById(id);
+    }
+
+    @Override
+    public synchronized void deleteTaskById(int id) {
+        taskManager.deleteTaskById(id);
+    }
+
+    @Override
+    public synchronized void deleteSubtaskById(int id) {
+        taskManager.deleteSubtaskById(id);
+    }
+
+    @Override
+    public synchronized Set<Subtask> getEpicSubtasks(Epic epic) {
+        return taskManager.getEpicSubtasks(epic);
+    }
+
+    @Override
+    public synchronized List<Task> history() {
+        return taskManager.history();
+    }
+
+    @Override
+    public synchronized List<Task> history(int limit) {
+        return taskManager.history(limit);
+    }
+
+    @Override
+    public synchronized List<Task> history(Integer afterId, int limit) {
+        return taskManager.history(afterId, limit);
+    }
+
+    @Override
+    public synchronized long getVersion() {
+        return taskManager.getVersion();
+    }
+
+    @Override
+    public synchronized long getVersion(Type type) {
+        return taskManager.getVersion(type);
+    }
+
+    @Override
+    public synchronized long getHistoryVersion() {
+        return taskManager.getHistoryVersion();
+    }
+}
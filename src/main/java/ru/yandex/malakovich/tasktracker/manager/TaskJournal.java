@@ -0,0 +1,216 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.ManagerLoadException;
+import ru.yandex.malakovich.tasktracker.exception.ManagerSaveException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the operations applied to a manager since its last snapshot.
+ * Every record is flushed to the operating system as soon as it is appended,
+ * the file is forced to the storage device once per syncInterval records.
+ * <p>
+ * A record is a line of the CRC32 of the record in 8 hex digits, a comma and the record itself.
+ * A crash in the middle of an append can leave only the last line unterminated or with a wrong checksum:
+ * such a tail is dropped when the journal is read and cut off when it is opened for appending again.
+ * A broken line followed by good ones is corruption rather than a torn append and fails the read.
+ */
+public class TaskJournal implements Closeable {
+    private static final int CRC_LENGTH = 8;
+    private static final char CRC_SEPARATOR = ',';
+    private static final byte LINE_END = '\n';
+
+    private final File file;
+    private final int syncInterval;
+    private final FileOutputStream outputStream;
+    private final BufferedWriter writer;
+    private int size;
+    private int unsynced;
+
+    public TaskJournal(File file, int syncInterval) {
+        this.file = file;
+        this.syncInterval = syncInterval;
+        try {
+            if (file.exists()) {
+                Scan scan = scan(file);
+                truncate(file, scan.validLength);
+                this.size = scan.records.size();
+            }
+            outputStream = new FileOutputStream(file, true);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't open journal: " + file.getAbsolutePath(), exception);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    public void append(String record) {
+        try {
+            writer.write(frame(record));
+            writer.write(LINE_END);
+            writer.flush();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't append to journal: " + file.getAbsolutePath(), exception);
+        }
+
+        size++;
+        if (++unsynced >= syncInterval) {
+            sync();
+        }
+    }
+
+    public void sync() {
+        try {
+            writer.flush();
+            outputStream.getChannel().force(false);
+            unsynced = 0;
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't sync journal: " + file.getAbsolutePath(), exception);
+        }
+    }
+
+    public void truncate() {
+        try {
+            writer.flush();
+            outputStream.getChannel().truncate(0);
+            outputStream.getChannel().force(false);
+            size = 0;
+            unsynced = 0;
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't truncate journal: " + file.getAbsolutePath(), exception);
+        }
+    }
+
+    /**
+     * Returns the number of records appended since the journal was last truncated.
+     * @return the number of records in the journal
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        sync();
+        try {
+            writer.close();
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't close journal: " + file.getAbsolutePath(), exception);
+        }
+    }
+
+    /**
+     * Returns the complete records of the journal, a torn last record is left out.
+     * @throws ManagerLoadException if the journal can't be read or a record other than the last one is broken
+     */
+    public static List<String> read(File file) {
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return scan(file).records;
+        } catch (IOException exception) {
+            throw new ManagerLoadException("Can't read journal: " + file.getName(), exception);
+        }
+    }
+
+    /**
+     * Empties the journal file, if there is one, without opening it for appending.
+     */
+    public static void truncate(File file) {
+        try {
+            truncate(file, 0);
+        } catch (IOException exception) {
+            throw new ManagerSaveException("Can't truncate journal: " + file.getAbsolutePath(), exception);
+        }
+    }
+
+    private static String frame(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue()) + CRC_SEPARATOR + record;
+    }
+
+    private static Scan scan(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        List<String> records = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != LINE_END) {
+                end++;
+            }
+            if (end == bytes.length) {
+                // the last append didn't finish the line
+                break;
+            }
+
+            String record = unframe(bytes, start, end, crc);
+            if (record == null) {
+                if (end + 1 < bytes.length) {
+                    throw new ManagerLoadException("Corrupted journal record at offset " + start + ": "
+                            + file.getName());
+                }
+                break;
+            }
+            records.add(record);
+            start = end + 1;
+        }
+
+        return new Scan(records, start);
+    }
+
+    /**
+     * Returns the record framed in the line from start to end, or null if the frame or the checksum is wrong.
+     */
+    private static String unframe(byte[] bytes, int start, int end, CRC32 crc) {
+        int recordStart = start + CRC_LENGTH + 1;
+        if (recordStart > end || bytes[recordStart - 1] != CRC_SEPARATOR) {
+            return null;
+        }
+
+        long expected;
+        try {
+            expected = Long.parseLong(new String(bytes, start, CRC_LENGTH, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+        crc.reset();
+        crc.update(bytes, recordStart, end - recordStart);
+
+        return crc.getValue() == expected
+                ? new String(bytes, recordStart, end - recordStart, StandardCharsets.UTF_8)
+                : null;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        if (file.length() > length) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.setLength(length);
+                randomAccessFile.getChannel().force(false);
+            }
+        }
+    }
+
+    private static final class Scan {
+        private final List<String> records;
+        private final long validLength;
+
+        private Scan(List<String> records, long validLength) {
+            this.records = records;
+            this.validLength = validLength;
+        }
+    }
+}
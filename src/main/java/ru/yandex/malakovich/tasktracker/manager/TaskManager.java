@@ -1,8 +1,10 @@
 package ru.yandex.malakovich.tasktracker.manager;
 
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
 
 import java.util.List;
 import java.util.Set;
@@ -33,6 +35,65 @@ public interface TaskManager {
      */
     List<Task> getPrioritizedTasksList();
 
+    /**
+     * Returns a page of epics ordered by id.
+     * @param afterId id of the last epic of the previous page or null for the first page
+     * @param limit maximum number of epics
+     * @return at most limit epics with ids greater than afterId
+     */
+    List<Epic> getEpics(Integer afterId, int limit);
+
+    /**
+     * Returns a page of tasks ordered by id.
+     * @param afterId id of the last task of the previous page or null for the first page
+     * @param limit maximum number of tasks
+     * @return at most limit tasks with ids greater than afterId
+     */
+    List<Task> getTasks(Integer afterId, int limit);
+
+    /**
+     * Returns a page of subtasks ordered by id.
+     * @param afterId id of the last subtask of the previous page or null for the first page
+     * @param limit maximum number of subtasks
+     * @return at most limit subtasks with ids greater than afterId
+     */
+    List<Subtask> getSubtasks(Integer afterId, int limit);
+
+    /**
+     * Returns a page of tasks sorted by their start time.
+     * @param after the last task of the previous page or null for the first page, it doesn't have to exist anymore
+     * @param limit maximum number of tasks
+     * @return at most limit tasks that follow the specified one
+     */
+    List<Task> getPrioritizedTasksList(Task after, int limit);
+
+    /**
+     * Returns a page of epics with the specified status ordered by id.
+     * @param status status of the epics
+     * @param afterId id of the last epic of the previous page or null for the first page
+     * @param limit maximum number of epics
+     * @return at most limit epics with the status and ids greater than afterId
+     */
+    List<Epic> getEpics(Status status, Integer afterId, int limit);
+
+    /**
+     * Returns a page of tasks with the specified status ordered by id.
+     * @param status status of the tasks
+     * @param afterId id of the last task of the previous page or null for the first page
+     * @param limit maximum number of tasks
+     * @return at most limit tasks with the status and ids greater than afterId
+     */
+    List<Task> getTasks(Status status, Integer afterId, int limit);
+
+    /**
+     * Returns a page of subtasks with the specified status ordered by id.
+     * @param status status of the subtasks
+     * @param afterId id of the last subtask of the previous page or null for the first page
+     * @param limit maximum number of subtasks
+     * @return at most limit subtasks with the status and ids greater than afterId
+     */
+    List<Subtask> getSubtasks(Status status, Integer afterId, int limit);
+
     /**
      * Removes all the mappings from the epics map and the subtasks map.
      */
@@ -138,4 +199,39 @@ public interface TaskManager {
      * @return a list of unique Task objects that were recently viewed
      */
     List<Task> history();
+
+    /**
+     * Returns the latest views in the order they were made.
+     * @param limit maximum number of tasks
+     * @return at most limit tasks that were viewed last
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    List<Task> history(int limit);
+
+    /**
+     * Returns a page of the history.
+     * @param afterId id of the last task of the previous page or null for the first page
+     * @param limit maximum number of tasks
+     * @return at most limit tasks viewed after the specified one, or an empty list if it's not in the history
+     */
+    List<Task> history(Integer afterId, int limit);
+
+    /**
+     * Returns the version of the manager, it grows with every change of any collection or the history.
+     * @return the version of the manager
+     */
+    long getVersion();
+
+    /**
+     * Returns the version of the collection of the specified type, it grows with every change of the collection.
+     * @param type type of the collection
+     * @return the version of the collection
+     */
+    long getVersion(Type type);
+
+    /**
+     * Returns the version of the history, it grows with every change of the history.
+     * @return the version of the history
+     */
+    long getHistoryVersion();
 }
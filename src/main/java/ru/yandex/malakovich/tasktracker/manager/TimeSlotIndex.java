@@ -0,0 +1,130 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.exception.InvalidStartTimeException;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Index of the time slots occupied by scheduled tasks, every slot is a half-open interval [start, end).
+ * Slots with a positive duration never overlap each other, so they are kept in a set ordered by start time only
+ * and the only candidate for an overlap is the nearest slot starting before the end of the checked interval.
+ * Tasks without a duration occupy a single point in time and are kept separately. A point overlaps a slot
+ * that contains it, including a slot starting at the same instant, but never another point.
+ * Tasks without a start time are not indexed, they fit anywhere.
+ */
+public class TimeSlotIndex {
+    private static final Comparator<Task> START_COMPARATOR = Task::compareStartTime;
+    private static final Comparator<Task> POINT_COMPARATOR =
+            START_COMPARATOR.thenComparing(Task::getId, Comparator.nullsFirst(Integer::compare));
+
+    private final NavigableSet<Task> slots = new TreeSet<>(START_COMPARATOR);
+    private final NavigableSet<Task> points = new TreeSet<>(POINT_COMPARATOR);
+
+    /**
+     * Throws InvalidStartTimeException if the specified task overlaps any indexed task except the one with the same id.
+     * @param candidate a task to be checked
+     */
+    public void validate(Task candidate) {
+        Task overlapping = findOverlapping(candidate);
+        if (overlapping != null) {
+            throw new InvalidStartTimeException(overlapping, candidate);
+        }
+    }
+
+    /**
+     * Returns an indexed task that overlaps the specified task, ignoring the task with the same id.
+     * @param candidate a task to be checked
+     * @return an overlapping task or null if the candidate fits
+     */
+    public Task findOverlapping(Task candidate) {
+        LocalDateTime start = candidate.getStartTime();
+        if (start == null) {
+            return null;
+        }
+
+        LocalDateTime end = getEnd(candidate);
+        Task slot = lowerSlot(end, isPoint(candidate), candidate);
+        if (slot != null && getEnd(slot).isAfter(start)) {
+            return slot;
+        }
+
+        for (Task point : points.tailSet(point(start), true)) {
+            if (!point.getStartTime().isBefore(end)) {
+                break;
+            }
+            if (!isSame(point, candidate)) {
+                return point;
+            }
+        }
+
+        return null;
+    }
+
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+
+        if (isPoint(task)) {
+            points.add(task);
+        } else {
+            // a slot starting at the same time is replaced
+            slots.remove(task);
+            slots.add(task);
+        }
+    }
+
+    public void remove(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+
+        if (isPoint(task)) {
+            points.remove(task);
+        } else {
+            Task slot = slots.ceiling(task);
+            if (slot != null && slot.compareStartTime(task) == 0 && slot.equals(task)) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    public void clear() {
+        slots.clear();
+        points.clear();
+    }
+
+    /**
+     * Returns the last slot starting before the time, or at the time if inclusive, except the candidate itself.
+     */
+    private Task lowerSlot(LocalDateTime time, boolean inclusive, Task candidate) {
+        Task slot = inclusive ? slots.floor(point(time)) : slots.lower(point(time));
+        if (slot != null && isSame(slot, candidate)) {
+            slot = slots.lower(slot);
+        }
+
+        return slot;
+    }
+
+    private static Task point(LocalDateTime time) {
+        return new Task(null, null, null, null, time);
+    }
+
+    private static boolean isPoint(Task task) {
+        return task.getDuration() == null || getEnd(task).equals(task.getStartTime());
+    }
+
+    private static LocalDateTime getEnd(Task task) {
+        LocalDateTime end = task.getEndTime();
+        return end == null ? task.getStartTime() : end;
+    }
+
+    private static boolean isSame(Task task, Task candidate) {
+        return candidate.getId() != null && Objects.equals(task.getId(), candidate.getId());
+    }
+}
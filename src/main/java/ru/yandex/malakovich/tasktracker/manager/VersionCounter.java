@@ -0,0 +1,46 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import ru.yandex.malakovich.tasktracker.model.Type;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing version numbers of a task manager: one for every collection, one for the history
+ * and a global one that grows with each of them. A change is counted after it is made, so a reader that takes
+ * a version before reading a collection never pairs a new version with old contents.
+ */
+final class VersionCounter {
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Type, AtomicLong> versions = new EnumMap<>(Type.class);
+    private final AtomicLong historyVersion = new AtomicLong();
+
+    VersionCounter() {
+        for (Type type : Type.values()) {
+            versions.put(type, new AtomicLong());
+        }
+    }
+
+    void changed(Type type) {
+        versions.get(type).incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    void historyChanged() {
+        historyVersion.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    long get() {
+        return version.get();
+    }
+
+    long get(Type type) {
+        return versions.get(type).get();
+    }
+
+    long getHistory() {
+        return historyVersion.get();
+    }
+}
@@ -1,23 +1,28 @@
 package ru.yandex.malakovich.tasktracker.model;
 
 import ru.yandex.malakovich.tasktracker.util.DateTimeUtils;
+import ru.yandex.malakovich.tasktracker.util.IntSet;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 public class Epic extends Task {
     private final Set<Integer> subtasks;
+    private final int hash;
 
     private Epic(Integer id, String description, Status status, Set<Integer> subtasks, String title,
                  Duration duration,
                  LocalDateTime startTime) {
         super(id, description, status, title, duration, startTime);
         this.subtasks = subtasks;
+        this.hash = 31 * super.hashCode() + subtasks.hashCode();
     }
 
+    /**
+     * Returns the ids of the epic's subtasks, the set can't be modified.
+     */
     public Set<Integer> getSubtasks() {
         return subtasks;
     }
@@ -42,7 +47,7 @@ public class Epic extends Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), getSubtasks());
+        return hash;
     }
 
     @Override
@@ -62,18 +67,32 @@ public class Epic extends Task {
         Duration duration = getDuration(subtasks);
         LocalDateTime startTime = getStartTime(subtasks);
 
-        Set<Integer> subtasksIds = new HashSet<>();
+        IntSet subtasksIds = new IntSet();
         for (Subtask s : subtasks) {
             subtasksIds.add(s.getId());
         }
 
-        return new Epic(id, description, status, subtasksIds, title, duration, startTime);
+        return new Epic(id, description, status, subtasksIds.snapshot(), title, duration, startTime);
     }
 
     public static Epic create(String description, Set<Subtask> subtasks, String title) {
         return create(null, description, subtasks, title);
     }
 
+    /**
+     * Creates an epic with already computed fields, e.g. from running aggregates of its subtasks.
+     * An IntSet of subtask ids is not copied, the epic keeps its snapshot, so later changes of the set don't show.
+     */
+    public static Epic create(Integer id, String description, Status status, Set<Integer> subtasks, String title,
+                              Duration duration, LocalDateTime startTime) {
+        Objects.requireNonNull(title);
+        Objects.requireNonNull(description);
+        Objects.requireNonNull(subtasks);
+
+        IntSet ids = subtasks instanceof IntSet ? (IntSet) subtasks : new IntSet(subtasks);
+        return new Epic(id, description, status, ids.snapshot(), title, duration, startTime);
+    }
+
     private static Status getStatus(Set<Subtask> subtasks) {
         int statusNew = 0;
         int statusDone = 0;
@@ -2,10 +2,10 @@ package ru.yandex.malakovich.tasktracker.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Objects;
 
 public class Subtask extends Task {
-    private final Integer epicId;
+    private final int epicId;
+    private final boolean hasEpicId;
 
     public Subtask(Integer id,
                    String description,
@@ -15,7 +15,8 @@ public class Subtask extends Task {
                    Duration duration,
                    LocalDateTime startTime) {
         super(id, description, status, title, duration, startTime);
-        this.epicId = epicId;
+        this.epicId = epicId == null ? 0 : epicId;
+        this.hasEpicId = epicId != null;
     }
 
     public Subtask(String description,
@@ -28,7 +29,7 @@ public class Subtask extends Task {
     }
 
     public Integer getEpicId() {
-        return epicId;
+        return hasEpicId ? epicId : null;
     }
 
     @Override
@@ -37,7 +38,7 @@ public class Subtask extends Task {
     }
 
     public Subtask withId(Integer id) {
-        return new Subtask(id, getDescription(), getStatus(), epicId, getTitle(), getDuration(), getStartTime());
+        return new Subtask(id, getDescription(), getStatus(), getEpicId(), getTitle(), getDuration(), getStartTime());
     }
 
     @Override
@@ -46,18 +47,18 @@ public class Subtask extends Task {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         Subtask subtask = (Subtask) o;
-        return Objects.equals(epicId, subtask.epicId);
+        return hasEpicId == subtask.hasEpicId && epicId == subtask.epicId;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), epicId);
+        return 31 * super.hashCode() + epicId;
     }
 
     @Override
     public String toString() {
         return "Subtask{" +
-                "epicId=" + epicId +
+                "epicId=" + getEpicId() +
                 ", " + toStringHelper() +
                 "}";
     }
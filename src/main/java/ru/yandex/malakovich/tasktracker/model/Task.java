@@ -2,23 +2,48 @@ package ru.yandex.malakovich.tasktracker.model;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 
+/**
+ * Immutable task. The id, the duration and the start time are packed into primitive fields, so a task
+ * takes a single object besides its strings. Duration and LocalDateTime are materialised by the getters,
+ * the start time is kept as UTC epoch seconds with nanoseconds and nothing is lost on the way.
+ * The hash code is computed once, in the constructor.
+ */
 public class Task {
+    private static final byte HAS_ID = 1;
+    private static final byte HAS_DURATION = 1 << 1;
+    private static final byte HAS_START_TIME = 1 << 2;
+
     private final String title;
     private final String description;
     private final Status status;
-    private final Integer id;
-    private final Duration duration;
-    private final LocalDateTime startTime;
+    private final int id;
+    private final long durationSeconds;
+    private final long startEpochSecond;
+    private final int durationNanos;
+    private final int startNanos;
+    private final int hash;
+    private final byte flags;
 
     public Task(Integer id, String description, Status status, String title, Duration duration, LocalDateTime startTime) {
         this.title = title;
         this.description = description;
         this.status = status;
-        this.id = id;
-        this.duration = duration;
-        this.startTime = startTime;
+        this.id = id == null ? 0 : id;
+        this.durationSeconds = duration == null ? 0 : duration.getSeconds();
+        this.durationNanos = duration == null ? 0 : duration.getNano();
+        this.startEpochSecond = startTime == null ? 0 : startTime.toEpochSecond(ZoneOffset.UTC);
+        this.startNanos = startTime == null ? 0 : startTime.getNano();
+        this.flags = (byte) ((id == null ? 0 : HAS_ID)
+                | (duration == null ? 0 : HAS_DURATION)
+                | (startTime == null ? 0 : HAS_START_TIME));
+
+        int h = Objects.hashCode(title);
+        h = 31 * h + Objects.hashCode(description);
+        h = 31 * h + Objects.hashCode(status);
+        this.hash = 31 * h + (id == null ? 0 : id);
     }
 
     public Task(Integer id, String description, String title, Duration duration, LocalDateTime startTime) {
@@ -42,7 +67,7 @@ public class Task {
     }
 
     public Integer getId() {
-        return id;
+        return hasId() ? id : null;
     }
 
     public Type getType() {
@@ -50,19 +75,42 @@ public class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return (flags & HAS_DURATION) == 0 ? null : Duration.ofSeconds(durationSeconds, durationNanos);
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return (flags & HAS_START_TIME) == 0 ? null : LocalDateTime.ofEpochSecond(startEpochSecond, startNanos,
+                ZoneOffset.UTC);
     }
 
     public LocalDateTime getEndTime() {
-        return startTime == null || duration == null ? null : startTime.plusMinutes(duration.toMinutes());
+        if ((flags & HAS_START_TIME) == 0 || (flags & HAS_DURATION) == 0) {
+            return null;
+        }
+
+        // the duration counts in whole minutes, like Duration.toMinutes
+        return LocalDateTime.ofEpochSecond(Math.addExact(startEpochSecond, durationSeconds / 60 * 60), startNanos,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Compares the start times of the tasks without materialising them, a task without a start time goes last.
+     * @param other task to compare with
+     * @return a negative number, zero or a positive number if this task starts before, with or after the other
+     */
+    public int compareStartTime(Task other) {
+        boolean started = (flags & HAS_START_TIME) != 0;
+        boolean otherStarted = (other.flags & HAS_START_TIME) != 0;
+        if (!started || !otherStarted) {
+            return Boolean.compare(otherStarted, started);
+        }
+
+        int result = Long.compare(startEpochSecond, other.startEpochSecond);
+        return result != 0 ? result : Integer.compare(startNanos, other.startNanos);
     }
 
     public Task withId(Integer id) {
-        return new Task(id, description, status, title, duration, startTime);
+        return new Task(id, description, status, title, getDuration(), getStartTime());
     }
 
     @Override
@@ -70,7 +118,8 @@ public class Task {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Task task = (Task) o;
-        return Objects.equals(getId(), task.getId())
+        return hash == task.hash
+                && hasId() == task.hasId() && id == task.id
                 && Objects.equals(getTitle(), task.getTitle())
                 && Objects.equals(getDescription(), task.getDescription())
                 && getStatus() == task.getStatus();
@@ -78,7 +127,7 @@ public class Task {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getTitle(), getDescription(), getStatus(), getId());
+        return hash;
     }
 
     @Override
@@ -90,6 +139,10 @@ public class Task {
         return "title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
-                ", id=" + id;
+                ", id=" + getId();
+    }
+
+    private boolean hasId() {
+        return (flags & HAS_ID) != 0;
     }
 }
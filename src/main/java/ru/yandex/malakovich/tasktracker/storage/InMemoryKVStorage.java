@@ -0,0 +1,30 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage that keeps the values in memory only, they are lost when the server stops.
+ */
+public class InMemoryKVStorage implements KVStorage {
+    private final Map<String, String> data = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public void put(String key, String value) {
+        data.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        data.remove(key);
+    }
+
+    @Override
+    public void close() {
+    }
+}
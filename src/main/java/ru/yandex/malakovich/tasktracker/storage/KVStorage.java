@@ -0,0 +1,46 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Key-value storage behind a KVServer. Implementations have to be thread-safe.
+ */
+public interface KVStorage extends Closeable {
+    /**
+     * Returns the value stored by the key or null if there is no such key.
+     */
+    String get(String key);
+
+    /**
+     * Returns the UTF-8 bytes of the value stored by the key or null if there is no such key.
+     * Storages that keep the values as bytes return them without decoding and encoding a String.
+     */
+    default ByteBuffer getBytes(String key) {
+        String value = get(key);
+        return value == null ? null : ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void put(String key, String value);
+
+    void remove(String key);
+
+    /**
+     * Applies all the changes, a null value removes the key.
+     * @param changes new values by key
+     */
+    default void apply(Map<String, String> changes) {
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            if (entry.getValue() == null) {
+                remove(entry.getKey());
+            } else {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,568 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+import ru.yandex.malakovich.tasktracker.exception.StorageException;
+import ru.yandex.malakovich.tasktracker.util.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Bitcask-style storage: every change is appended to the active segment file
+ * and an in-memory key directory points to the latest value of every key.
+ * When the active segment is full it is sealed, memory-mapped and a hint file with the key directory entries
+ * of the segment is written next to it, so a restart maps the segments and the small hint files
+ * instead of reading the values. Values of sealed segments are served as slices of the mapped memory.
+ * Only a segment without a hint, i.e. the one that was active when the process died, is scanned record by record,
+ * and its torn tail, if any, is cut off.
+ * <p>
+ * Record layout: crc32 of the rest of the record (int), key length (int), value length (int, -1 for a removed key),
+ * key and value bytes. Hint layout: key length (int), value length (int), value offset (long) and key bytes
+ * for every entry, then the number of entries (int) and the crc32 of everything before it (int).
+ * A hint file is forced before it is renamed into place, and one that fails the checks, e.g. because
+ * it outlived the data it describes after a power loss, is ignored and the segment is scanned instead.
+ * The directory is synced whenever a segment is sealed and before compaction deletes the old segments.
+ * <p>
+ * Reads go to the files directly and run in parallel with each other and with the single writer,
+ * compaction blocks both.
+ */
+public class LogStructuredKVStorage implements KVStorage {
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final String DATA_SUFFIX = ".data";
+    public static final String HINT_SUFFIX = ".hint";
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean syncWrites;
+    private final Map<String, Location> keyDirectory = new ConcurrentHashMap<>();
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private final Object writeLock = new Object();
+    private final List<Hint> activeHints = new ArrayList<>();
+    private Segment active;
+
+    public LogStructuredKVStorage(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, true);
+    }
+
+    /**
+     * Opens the storage in the directory, restoring the key directory from the segments already there.
+     * @param directory directory of the segment and hint files
+     * @param segmentSize size in bytes after which the active segment is sealed
+     * @param syncWrites true to force every change to the storage device before it's acknowledged
+     */
+    public LogStructuredKVStorage(Path directory, long segmentSize, boolean syncWrites) {
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment can't be mapped, size: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException exception) {
+            throw new StorageException("Can't create storage directory: " + directory, exception);
+        }
+        recover();
+    }
+
+    @Override
+    public String get(String key) {
+        ByteBuffer value = getBytes(key);
+        return value == null ? null : StandardCharsets.UTF_8.decode(value).toString();
+    }
+
+    /**
+     * Returns a read-only slice of the mapped segment if the value is in a sealed segment,
+     * or a copy read from the active one. The slice stays valid after compaction deletes its segment.
+     */
+    @Override
+    public ByteBuffer getBytes(String key) {
+        compactionLock.readLock().lock();
+        try {
+            Location location = keyDirectory.get(key);
+            return location == null ? null : read(location);
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(String key, String value) {
+        apply(Map.of(key, value));
+    }
+
+    @Override
+    public void remove(String key) {
+        Map<String, String> changes = new TreeMap<>();
+        changes.put(key, null);
+        apply(changes);
+    }
+
+    /**
+     * Appends all the changes and forces them to the storage device once, before any of them becomes visible.
+     */
+    @Override
+    public void apply(Map<String, String> changes) {
+        compactionLock.readLock().lock();
+        try {
+            synchronized (writeLock) {
+                List<Location> locations = new ArrayList<>(changes.size());
+                for (Map.Entry<String, String> entry : changes.entrySet()) {
+                    ByteBuffer value = entry.getValue() == null
+                            ? null
+                            : ByteBuffer.wrap(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                    locations.add(append(entry.getKey(), value));
+                }
+                if (syncWrites) {
+                    force(active);
+                }
+
+                int i = 0;
+                for (String key : changes.keySet()) {
+                    index(key, locations.get(i++));
+                }
+            }
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live values into new segments and deletes the old ones,
+     * dropping overwritten values and removed keys.
+     */
+    public void compact() {
+        compactionLock.writeLock().lock();
+        try {
+            synchronized (writeLock) {
+                int last = active.id;
+                roll();
+                for (Map.Entry<String, Location> entry : keyDirectory.entrySet()) {
+                    entry.setValue(append(entry.getKey(), read(entry.getValue())));
+                }
+                force(active);
+                // the new segments have to be in the directory for good before the old ones leave it
+                forceDirectory();
+
+                // in ascending order, so a crash never leaves an old value without the tombstone that removed it
+                for (int id : segments.keySet().stream().filter(id -> id <= last).sorted()
+                        .collect(Collectors.toList())) {
+                    Segment segment = segments.remove(id);
+                    close(segment);
+                    Files.deleteIfExists(dataPath(id));
+                    Files.deleteIfExists(hintPath(id));
+                }
+            }
+        } catch (IOException exception) {
+            throw new StorageException("Can't delete compacted segments in " + directory, exception);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of segment files, including the active one.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces the active segment to the storage device and writes its hint, so the next start doesn't scan it.
+     */
+    @Override
+    public void close() {
+        compactionLock.writeLock().lock();
+        try {
+            synchronized (writeLock) {
+                force(active);
+                writeHints(active.id, activeHints);
+                for (Segment segment : segments.values()) {
+                    close(segment);
+                }
+                segments.clear();
+            }
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void recover() {
+        List<Integer> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(DATA_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(0, name.length() - DATA_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException exception) {
+            throw new StorageException("Can't list storage directory: " + directory, exception);
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            boolean last = i == ids.size() - 1;
+            Segment segment = open(id);
+            segments.put(id, segment);
+
+            List<Hint> hints = Files.exists(hintPath(id)) ? readHints(hintPath(id), size(segment)) : null;
+            boolean hinted = hints != null;
+            if (hinted) {
+                segment.size = size(segment);
+            } else {
+                hints = scan(segment);
+            }
+            for (Hint hint : hints) {
+                index(hint.key, new Location(id, hint.offset, hint.length));
+            }
+
+            if (last && segment.size < segmentSize) {
+                // the appends go on in the last segment, so its hint is written again when it's sealed
+                activeHints.addAll(hints);
+                deleteHints(id);
+                active = segment;
+            } else {
+                if (!hinted) {
+                    force(segment);
+                    writeHints(id, hints);
+                }
+                map(segment);
+            }
+        }
+
+        if (active == null) {
+            int id = ids.isEmpty() ? 1 : ids.get(ids.size() - 1) + 1;
+            active = open(id);
+            segments.put(id, active);
+        }
+    }
+
+    private List<Hint> scan(Segment segment) {
+        List<Hint> hints = new ArrayList<>();
+        long size = size(segment);
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(segment, header, position);
+            header.flip();
+            int crc = header.getInt();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            long bodyLength = keyLength + (long) Math.max(valueLength, 0);
+            if (keyLength < 0 || valueLength < TOMBSTONE || position + HEADER_SIZE + bodyLength > size) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate((int) bodyLength);
+            readFully(segment, body, position + HEADER_SIZE);
+            CRC32 checksum = new CRC32();
+            checksum.update(header.array(), Integer.BYTES, HEADER_SIZE - Integer.BYTES);
+            checksum.update(body.array());
+            if ((int) checksum.getValue() != crc) {
+                break;
+            }
+
+            String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            hints.add(new Hint(key, position + HEADER_SIZE + keyLength, valueLength));
+            position += HEADER_SIZE + bodyLength;
+        }
+
+        if (position < size) {
+            try {
+                segment.channel.truncate(position);
+            } catch (IOException exception) {
+                throw new StorageException("Can't truncate segment: " + dataPath(segment.id), exception);
+            }
+        }
+        segment.size = position;
+
+        return hints;
+    }
+
+    private Location append(String key, ByteBuffer value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == null ? TOMBSTONE : value.remaining();
+        int recordLength = HEADER_SIZE + keyBytes.length + Math.max(valueLength, 0);
+        if (active.size > 0 && active.size + recordLength > segmentSize) {
+            roll();
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.putInt(0).putInt(keyBytes.length).putInt(valueLength).put(keyBytes);
+        if (value != null) {
+            record.put(value);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), Integer.BYTES, recordLength - Integer.BYTES);
+        record.putInt(0, (int) checksum.getValue());
+        record.flip();
+
+        long position = active.size;
+        try {
+            while (record.hasRemaining()) {
+                active.channel.write(record, position + record.position());
+            }
+        } catch (IOException exception) {
+            throw new StorageException("Can't append to segment: " + dataPath(active.id), exception);
+        }
+        active.size += recordLength;
+
+        long offset = position + HEADER_SIZE + keyBytes.length;
+        activeHints.add(new Hint(key, offset, valueLength));
+
+        return new Location(active.id, offset, valueLength);
+    }
+
+    private void roll() {
+        force(active);
+        forceDirectory();
+        map(active);
+        writeHints(active.id, activeHints);
+        activeHints.clear();
+        int id = active.id + 1;
+        active = open(id);
+        segments.put(id, active);
+    }
+
+    private void index(String key, Location location) {
+        if (location.length == TOMBSTONE) {
+            keyDirectory.remove(key);
+        } else {
+            keyDirectory.put(key, location);
+        }
+    }
+
+    private ByteBuffer read(Location location) {
+        Segment segment = segments.get(location.segment);
+        MappedByteBuffer mapped = segment.mapped;
+        if (mapped != null) {
+            ByteBuffer value = mapped.duplicate();
+            value.position((int) location.offset).limit((int) location.offset + location.length);
+            return value.slice();
+        }
+
+        ByteBuffer value = ByteBuffer.allocate(location.length);
+        readFully(segment, value, location.offset);
+        value.flip();
+
+        return value;
+    }
+
+    private void map(Segment segment) {
+        try {
+            segment.mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        } catch (IOException exception) {
+            throw new StorageException("Can't map segment: " + dataPath(segment.id), exception);
+        }
+    }
+
+    private void readFully(Segment segment, ByteBuffer buffer, long position) {
+        try {
+            while (buffer.hasRemaining()) {
+                if (segment.channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+        } catch (IOException exception) {
+            throw new StorageException("Can't read segment: " + dataPath(segment.id), exception);
+        }
+    }
+
+    private void writeHints(int id, List<Hint> hints) {
+        Path path = hintPath(id);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+            for (Hint hint : hints) {
+                byte[] key = hint.key.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(key.length);
+                output.writeInt(hint.length);
+                output.writeLong(hint.offset);
+                output.write(key);
+            }
+            output.writeInt(hints.size());
+            output.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+            channel.force(true);
+        } catch (IOException exception) {
+            throw new StorageException("Can't write hint file: " + path, exception);
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new StorageException("Can't write hint file: " + path, exception);
+        }
+    }
+
+    /**
+     * Returns the entries of the hint file or null if the file is cut short, its count or checksum doesn't match,
+     * or an entry points past the end of the segment.
+     */
+    private static List<Hint> readHints(Path path, long segmentSize) {
+        List<Hint> hints = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int entriesEnd = (int) size - 2 * Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(input.duplicate().limit(entriesEnd + Integer.BYTES));
+            if (input.getInt(entriesEnd + Integer.BYTES) != (int) crc.getValue()) {
+                return null;
+            }
+
+            int count = input.getInt(entriesEnd);
+            input.limit(entriesEnd);
+            while (input.hasRemaining()) {
+                if (input.remaining() < 2 * Integer.BYTES + Long.BYTES) {
+                    return null;
+                }
+                int keyLength = input.getInt();
+                int length = input.getInt();
+                long offset = input.getLong();
+                if (keyLength < 0 || keyLength > input.remaining()
+                        || offset < 0 || offset + Math.max(length, 0) > segmentSize) {
+                    return null;
+                }
+                ByteBuffer key = input.slice().limit(keyLength);
+                input.position(input.position() + keyLength);
+                hints.add(new Hint(StandardCharsets.UTF_8.decode(key).toString(), offset, length));
+            }
+
+            return count == hints.size() ? hints : null;
+        } catch (IOException exception) {
+            throw new StorageException("Can't read hint file: " + path, exception);
+        }
+    }
+
+    private void deleteHints(int id) {
+        try {
+            Files.deleteIfExists(hintPath(id));
+        } catch (IOException exception) {
+            throw new StorageException("Can't delete hint file: " + hintPath(id), exception);
+        }
+    }
+
+    private Segment open(int id) {
+        try {
+            return new Segment(id, FileChannel.open(dataPath(id),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        } catch (IOException exception) {
+            throw new StorageException("Can't open segment: " + dataPath(id), exception);
+        }
+    }
+
+    private void force(Segment segment) {
+        try {
+            segment.channel.force(false);
+        } catch (IOException exception) {
+            throw new StorageException("Can't sync segment: " + dataPath(segment.id), exception);
+        }
+    }
+
+    private void forceDirectory() {
+        try {
+            FileUtils.forceDirectory(directory);
+        } catch (IOException exception) {
+            throw new StorageException("Can't sync storage directory: " + directory, exception);
+        }
+    }
+
+    private long size(Segment segment) {
+        try {
+            return segment.channel.size();
+        } catch (IOException exception) {
+            throw new StorageException("Can't read segment: " + dataPath(segment.id), exception);
+        }
+    }
+
+    private void close(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException exception) {
+            throw new StorageException("Can't close segment: " + dataPath(segment.id), exception);
+        }
+    }
+
+    private Path dataPath(int id) {
+        return directory.resolve(String.format("%010d", id) + DATA_SUFFIX);
+    }
+
+    private Path hintPath(int id) {
+        return directory.resolve(String.format("%010d", id) + HINT_SUFFIX);
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final FileChannel channel;
+        private long size;
+        // set by the writer when the segment is sealed and read by the readers without a lock
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, FileChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Location {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Hint {
+        private final String key;
+        private final long offset;
+        private final int length;
+
+        private Hint(String key, long offset, int length) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
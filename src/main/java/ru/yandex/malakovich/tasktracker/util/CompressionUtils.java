@@ -0,0 +1,165 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content codings of HTTP bodies: gzip and deflate (zlib format, as HTTP defines it).
+ */
+public class CompressionUtils {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String IDENTITY = "identity";
+    public static final String SUPPORTED_ENCODINGS = GZIP + ", " + DEFLATE;
+    // smaller bodies fit into a single packet anyway, so compressing them only costs time
+    public static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    private CompressionUtils() {
+    }
+
+    /**
+     * Returns the supported coding with the highest weight in the Accept-Encoding header, gzip wins a tie.
+     * @param acceptEncoding value of the Accept-Encoding header, may be null
+     * @return gzip, deflate or null if the body has to be sent as is
+     */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+
+        // a coding that is not listed gets the weight of *, if * is listed
+        double anyWeight = 0;
+        Double gzipWeight = null;
+        Double deflateWeight = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = weight(parts);
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzipWeight = weight;
+            } else if (coding.equals(DEFLATE)) {
+                deflateWeight = weight;
+            } else if (coding.equals("*")) {
+                anyWeight = weight;
+            }
+        }
+        if (gzipWeight == null) {
+            gzipWeight = anyWeight;
+        }
+        if (deflateWeight == null) {
+            deflateWeight = anyWeight;
+        }
+
+        if (gzipWeight > 0 && gzipWeight >= deflateWeight) {
+            return GZIP;
+        } else if (deflateWeight > 0) {
+            return DEFLATE;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if bodies in the specified coding can be decoded.
+     * @param contentEncoding value of the Content-Encoding header, may be null
+     * @return true for gzip, deflate, identity and a missing header
+     */
+    public static boolean isSupported(String contentEncoding) {
+        if (contentEncoding == null) {
+            return true;
+        }
+
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+
+        return coding.isEmpty() || coding.equals(IDENTITY) || coding.equals(GZIP) || coding.equals("x-gzip")
+                || coding.equals(DEFLATE);
+    }
+
+    /**
+     * Returns a stream that encodes everything written to it and writes the result to the specified stream.
+     * Closing the returned stream finishes the encoding and closes the specified stream.
+     * @param out stream for the encoded bytes
+     * @param encoding gzip, deflate or null to write the bytes as is
+     * @return encoding stream
+     * @throws IOException if the encoding is not supported
+     */
+    public static OutputStream encode(OutputStream out, String encoding) throws IOException {
+        String coding = encoding == null ? IDENTITY : encoding.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case IDENTITY:
+            case "":
+                return out;
+            case GZIP:
+            case "x-gzip":
+                return new GZIPOutputStream(out);
+            case DEFLATE:
+                return new DeflaterOutputStream(out);
+            default:
+                throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    /**
+     * Returns a stream that decodes the bytes read from the specified stream.
+     * @param in stream of the encoded bytes
+     * @param encoding value of the Content-Encoding header, may be null
+     * @return decoding stream
+     * @throws IOException if the encoding is not supported or the gzip header is broken
+     */
+    public static InputStream decode(InputStream in, String encoding) throws IOException {
+        String coding = encoding == null ? IDENTITY : encoding.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case IDENTITY:
+            case "":
+                return in;
+            case GZIP:
+            case "x-gzip":
+                return new GZIPInputStream(in);
+            case DEFLATE:
+                return new InflaterInputStream(in);
+            default:
+                throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    public static byte[] compress(byte[] data, String encoding) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (OutputStream encoded = encode(out, encoding)) {
+            encoded.write(data);
+        }
+
+        return out.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] data, String encoding) throws IOException {
+        try (InputStream decoded = decode(new ByteArrayInputStream(data), encoding)) {
+            return decoded.readAllBytes();
+        }
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+}
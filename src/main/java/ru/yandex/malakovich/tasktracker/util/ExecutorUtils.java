@@ -0,0 +1,76 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorUtils {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private ExecutorUtils() {
+    }
+
+    /**
+     * Returns a pool with a fixed number of platform threads and a bounded queue.
+     * When the queue is full the submitting thread runs the task itself, which slows down accepting new requests.
+     * @param threads number of threads in the pool
+     * @param name prefix of the thread names
+     * @return bounded thread pool
+     */
+    public static ExecutorService newBoundedThreadPool(int threads, String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY),
+                runnable -> new Thread(runnable, name + "-" + counter.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread for every task if the runtime supports them (JDK 21+),
+     * otherwise a bounded pool of platform threads.
+     * @param fallbackThreads number of threads in the fallback pool
+     * @param name prefix of the thread names in the fallback pool
+     * @return virtual thread per task executor or bounded thread pool
+     */
+    public static ExecutorService newVirtualThreadExecutor(int fallbackThreads, String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException exception) {
+            return newBoundedThreadPool(fallbackThreads, name);
+        }
+    }
+
+    /**
+     * Returns true if the runtime can start virtual threads.
+     * @return true if virtual threads are available
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting new tasks and waits for the running ones to finish, interrupting them after the timeout.
+     * @param executor executor to be shut down
+     * @param timeoutMillis time to wait for the running tasks, in milliseconds
+     */
+    public static void shutdownGracefully(ExecutorService executor, long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException exception) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class FileUtils {
+    private FileUtils() {
+    }
+
+    /**
+     * Waits until the contents of the file reach the storage device.
+     * @param file file to be synced
+     */
+    public static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Waits until the entries of the directory, e.g. a file just created, renamed or deleted in it,
+     * reach the storage device. A directory can't be opened on Windows, where the entries don't need it.
+     * @param directory directory to be synced
+     */
+    public static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException exception) {
+            // Windows
+        }
+    }
+}
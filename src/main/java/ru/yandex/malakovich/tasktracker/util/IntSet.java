@@ -0,0 +1,201 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of ints kept as a sorted array, so an element costs four bytes instead of a boxed Integer
+ * and a HashMap node. Iteration goes in ascending order. Null is never contained and can't be added.
+ * <p>
+ * Ids are handed out in ascending order, so adding a new id appends it in O(1), while lookups
+ * are binary searches. It is equal to any other set with the same elements, e.g. a HashSet.
+ * <p>
+ * A snapshot shares the array with the set. Appending a greater element leaves the snapshots intact,
+ * any other change copies the array first.
+ */
+public class IntSet extends AbstractSet<Integer> {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements = EMPTY;
+    private int size;
+    private int modCount;
+    // the array is referenced by a snapshot, so only the cells after the size may be written
+    private boolean shared;
+    private final boolean readOnly;
+
+    public IntSet() {
+        readOnly = false;
+    }
+
+    private IntSet(int[] elements, int size) {
+        this.elements = elements;
+        this.size = size;
+        readOnly = true;
+    }
+
+    public IntSet(Collection<Integer> collection) {
+        readOnly = false;
+        if (collection instanceof IntSet) {
+            IntSet other = (IntSet) collection;
+            elements = Arrays.copyOf(other.elements, other.size);
+            size = other.size;
+        } else {
+            elements = new int[collection.size()];
+            addAll(collection);
+        }
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(elements, 0, size, value) >= 0;
+    }
+
+    public boolean add(int value) {
+        checkWritable();
+        int index = size == 0 || value > elements[size - 1] ? -size - 1 : Arrays.binarySearch(elements, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+
+        int insertion = -index - 1;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(4, size * 2));
+            shared = false;
+        } else if (insertion < size) {
+            unshare();
+        }
+        System.arraycopy(elements, insertion, elements, insertion + 1, size - insertion);
+        elements[insertion] = value;
+        size++;
+        modCount++;
+
+        return true;
+    }
+
+    public boolean remove(int value) {
+        checkWritable();
+        int index = Arrays.binarySearch(elements, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains((int) (Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add((int) value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove((int) (Integer) o);
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as AbstractSet.hashCode without boxing, as Integer.hashCode(value) is the value
+        int hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash += elements[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an unmodifiable set of the current elements in O(1).
+     */
+    public IntSet snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        shared = true;
+        return new IntSet(elements, size);
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        if (shared) {
+            elements = EMPTY;
+            shared = false;
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = index++;
+                return elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                index = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private void removeAt(int index) {
+        checkWritable();
+        unshare();
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+    }
+
+    private void unshare() {
+        if (shared) {
+            elements = Arrays.copyOf(elements, elements.length);
+            shared = false;
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Map from int keys to non-null values, kept as a sorted array of keys and a parallel array of values,
+ * so an entry costs two array cells instead of a tree node and a boxed key. Lookups are binary searches
+ * and iteration goes in ascending order of the keys.
+ * <p>
+ * Ids are handed out in ascending order, so a new key is appended in O(1). A removed key leaves a null value
+ * behind, and the arrays are compacted once more than half of them is removed, which keeps removal
+ * O(log n) amortized. Only a key smaller than the greatest one costs a shift of the greater entries.
+ * The map is not thread-safe and its views don't support modification while they are iterated.
+ */
+public class IntSortedMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    // number of used cells, including the removed ones
+    private int length;
+    private int size;
+
+    public V get(int key) {
+        int index = Arrays.binarySearch(keys, 0, length, key);
+        return index < 0 ? null : value(index);
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the key to the value.
+     * @return the previous value or null if there was none
+     */
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int index = length == 0 || key > keys[length - 1] ? -length - 1 : Arrays.binarySearch(keys, 0, length, key);
+        if (index >= 0) {
+            V previous = value(index);
+            values[index] = value;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+
+        int insertion = -index - 1;
+        if (length == keys.length) {
+            keys = Arrays.copyOf(keys, length * 2);
+            values = Arrays.copyOf(values, length * 2);
+        }
+        System.arraycopy(keys, insertion, keys, insertion + 1, length - insertion);
+        System.arraycopy(values, insertion, values, insertion + 1, length - insertion);
+        keys[insertion] = key;
+        values[insertion] = value;
+        length++;
+        size++;
+
+        return null;
+    }
+
+    /**
+     * Replaces the value of the key only if the key is mapped.
+     * @return the previous value or null if the key was not mapped
+     */
+    public V replace(int key, V value) {
+        Objects.requireNonNull(value);
+        int index = Arrays.binarySearch(keys, 0, length, key);
+        if (index < 0 || values[index] == null) {
+            return null;
+        }
+
+        V previous = value(index);
+        values[index] = value;
+
+        return previous;
+    }
+
+    /**
+     * Removes the key.
+     * @return the removed value or null if the key was not mapped
+     */
+    public V remove(int key) {
+        int index = Arrays.binarySearch(keys, 0, length, key);
+        if (index < 0 || values[index] == null) {
+            return null;
+        }
+
+        V previous = value(index);
+        values[index] = null;
+        size--;
+        if (size < length / 2) {
+            compact();
+        }
+
+        return previous;
+    }
+
+    public void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        length = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the values in ascending order of their keys.
+     */
+    public Collection<V> values() {
+        return new Values(0);
+    }
+
+    /**
+     * Returns the values of the keys greater than the specified one in ascending order of the keys.
+     */
+    public Collection<V> tailValues(int fromKey) {
+        int index = Arrays.binarySearch(keys, 0, length, fromKey);
+        return new Values(index < 0 ? -index - 1 : index + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index) {
+        return (V) values[index];
+    }
+
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < length; from++) {
+            if (values[from] != null) {
+                keys[to] = keys[from];
+                values[to] = values[from];
+                to++;
+            }
+        }
+        Arrays.fill(values, to, length, null);
+        length = to;
+    }
+
+    private class Values extends AbstractCollection<V> {
+        private final int from;
+
+        Values(int from) {
+            this.from = from;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private int index = skipRemoved(from);
+
+                @Override
+                public boolean hasNext() {
+                    return index < length;
+                }
+
+                @Override
+                public V next() {
+                    if (index >= length) {
+                        throw new NoSuchElementException();
+                    }
+                    V value = value(index);
+                    index = skipRemoved(index + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            if (from == 0) {
+                return size;
+            }
+
+            int count = 0;
+            for (int i = from; i < length; i++) {
+                if (values[i] != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private int skipRemoved(int index) {
+            while (index < length && values[index] == null) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import ru.yandex.malakovich.tasktracker.exception.InvalidStartTimeException;
 import ru.yandex.malakovich.tasktracker.model.Task;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 public class ManagerUtils {
@@ -30,6 +33,26 @@ public class ManagerUtils {
         }
     }
 
+    /**
+     * Returns at most limit first elements, iterating no further than needed.
+     * @param elements elements of a page and the elements after it
+     * @param limit maximum size of the page
+     * @return a list of at most limit first elements
+     */
+    public static <T> List<T> page(Iterable<? extends T> elements, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative page limit: " + limit);
+        }
+
+        List<T> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<? extends T> iterator = elements.iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+
+        return page;
+    }
+
     public static boolean validateTime(LocalDateTime left, LocalDateTime right, Task task) {
         return isBeforeInclusive(left, task.getStartTime()) && isAfterInclusive(task.getEndTime(), right);
     }
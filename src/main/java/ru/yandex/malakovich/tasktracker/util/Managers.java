@@ -1,11 +1,23 @@
 package ru.yandex.malakovich.tasktracker.util;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import ru.yandex.malakovich.tasktracker.json.DurationTypeAdapter;
+import ru.yandex.malakovich.tasktracker.json.LocalDateTimeTypeAdapter;
+import ru.yandex.malakovich.tasktracker.json.TaskTypeAdapter;
+import ru.yandex.malakovich.tasktracker.manager.ArrayHistoryManager;
 import ru.yandex.malakovich.tasktracker.manager.HttpTaskManager;
 import ru.yandex.malakovich.tasktracker.manager.HistoryManager;
-import ru.yandex.malakovich.tasktracker.manager.InMemoryHistoryManager;
+import ru.yandex.malakovich.tasktracker.manager.SynchronizedTaskManager;
 import ru.yandex.malakovich.tasktracker.manager.TaskManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 public class Managers {
+    public static final int DEFAULT_HISTORY_CAPACITY = 10_000;
+    private static final Gson GSON = getGsonBuilder().create();
+
     private Managers() {
     }
 
@@ -13,7 +25,36 @@ public class Managers {
         return new HttpTaskManager("http://localhost:8087");
     }
 
+    /**
+     * Returns a history that keeps the latest DEFAULT_HISTORY_CAPACITY views in arrays, so it allocates nothing
+     * on repeated views.
+     * @return new bounded history manager
+     */
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return new ArrayHistoryManager(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public static TaskManager synchronizedTaskManager(TaskManager taskManager) {
+        return new SynchronizedTaskManager(taskManager);
+    }
+
+    /**
+     * Returns a builder with the adapters of the model classes, LocalDateTime and Duration registered,
+     * so none of them is serialised by reflection.
+     * @return new GsonBuilder with the adapters registered
+     */
+    public static GsonBuilder getGsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(TaskTypeAdapter.FACTORY)
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationTypeAdapter());
+    }
+
+    /**
+     * Returns the shared Gson created by getGsonBuilder(), it is thread-safe.
+     * @return shared Gson
+     */
+    public static Gson getGson() {
+        return GSON;
     }
 }
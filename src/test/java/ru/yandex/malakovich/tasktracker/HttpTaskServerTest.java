@@ -6,8 +6,11 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.CompressionUtils;
+import ru.yandex.malakovich.tasktracker.util.Managers;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -15,10 +18,16 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.BAD_REQUEST;
+import static ru.yandex.malakovich.tasktracker.HttpStatus.NOT_MODIFIED;
 import static ru.yandex.malakovich.tasktracker.HttpStatus.OK;
 
 public class HttpTaskServerTest {
@@ -45,7 +54,7 @@ public class HttpTaskServerTest {
         HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
-        List<Task> tasks = new Gson().fromJson(response.body(), listType);
+        List<Task> tasks = Managers.getGson().fromJson(response.body(), listType);
 
         assertEquals(OK, response.statusCode());
         assertEquals(new ArrayList<>(), tasks);
@@ -58,7 +67,7 @@ public class HttpTaskServerTest {
         HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         Type listType = new TypeToken<ArrayList<Subtask>>(){}.getType();
-        List<Subtask> subtasks = new Gson().fromJson(response.body(), listType);
+        List<Subtask> subtasks = Managers.getGson().fromJson(response.body(), listType);
 
         assertEquals(OK, response.statusCode());
         assertEquals(new ArrayList<>(), subtasks);
@@ -71,7 +80,7 @@ public class HttpTaskServerTest {
         HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         Type listType = new TypeToken<ArrayList<Epic>>(){}.getType();
-        List<Epic> epics = new Gson().fromJson(response.body(), listType);
+        List<Epic> epics = Managers.getGson().fromJson(response.body(), listType);
 
         assertEquals(OK, response.statusCode());
         assertEquals(new ArrayList<>(), epics);
@@ -84,7 +93,7 @@ public class HttpTaskServerTest {
         HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
-        List<Epic> history = new Gson().fromJson(response.body(), listType);
+        List<Epic> history = Managers.getGson().fromJson(response.body(), listType);
 
         assertEquals(OK, response.statusCode());
         assertEquals(new ArrayList<>(), history);
@@ -97,9 +106,203 @@ public class HttpTaskServerTest {
         HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
         Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
-        List<Epic> history = new Gson().fromJson(response.body(), listType);
+        List<Epic> history = Managers.getGson().fromJson(response.body(), listType);
 
         assertEquals(OK, response.statusCode());
         assertEquals(new ArrayList<>(), history);
     }
+
+    @Test
+    void getTasksIsStreamedInChunks() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        Gson gson = Managers.getGson();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("description " + i, "title " + i, Duration.ZERO, null);
+            HttpRequest post = HttpRequest.newBuilder().uri(url)
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+            client.send(post, HttpResponse.BodyHandlers.ofString());
+        }
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
+            List<Task> tasks = gson.fromJson(response.body(), listType);
+
+            assertEquals(OK, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+            assertEquals(3, tasks.size());
+        } finally {
+            client.send(HttpRequest.newBuilder().uri(url).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @Test
+    void getTasksPagedWithCursor() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        Gson gson = Managers.getGson();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("description " + i, "title " + i, Duration.ZERO, null);
+            HttpRequest post = HttpRequest.newBuilder().uri(url)
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+            client.send(post, HttpResponse.BodyHandlers.ofString());
+        }
+
+        try {
+            Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
+            HttpRequest first = HttpRequest.newBuilder().uri(URI.create(url + "?limit=2")).GET().build();
+            HttpResponse<String> firstResponse = client.send(first, HttpResponse.BodyHandlers.ofString());
+            List<Task> firstPage = gson.fromJson(firstResponse.body(), listType);
+            String cursor = firstResponse.headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).orElseThrow();
+
+            HttpRequest second = HttpRequest.newBuilder()
+                    .uri(URI.create(url + "?limit=2&cursor=" + cursor)).GET().build();
+            HttpResponse<String> secondResponse = client.send(second, HttpResponse.BodyHandlers.ofString());
+            List<Task> secondPage = gson.fromJson(secondResponse.body(), listType);
+
+            assertEquals(2, firstPage.size());
+            assertEquals(String.valueOf(firstPage.get(1).getId()), cursor);
+            assertEquals(1, secondPage.size());
+            assertTrue(secondPage.get(0).getId() > firstPage.get(1).getId());
+            assertTrue(secondResponse.headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).isEmpty());
+        } finally {
+            client.send(HttpRequest.newBuilder().uri(url).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @Test
+    void getTasksByStatus() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        Gson gson = Managers.getGson();
+        for (Status status : List.of(Status.NEW, Status.DONE, Status.NEW)) {
+            Task task = new Task(null, "description", status, "title", Duration.ZERO, null);
+            HttpRequest post = HttpRequest.newBuilder().uri(url)
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+            client.send(post, HttpResponse.BodyHandlers.ofString());
+        }
+
+        try {
+            Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
+            HttpRequest all = HttpRequest.newBuilder().uri(URI.create(url + "?status=NEW")).GET().build();
+            HttpResponse<String> allResponse = client.send(all, HttpResponse.BodyHandlers.ofString());
+            List<Task> newTasks = gson.fromJson(allResponse.body(), listType);
+            HttpRequest page = HttpRequest.newBuilder().uri(URI.create(url + "?status=DONE&limit=1")).GET().build();
+            HttpResponse<String> pageResponse = client.send(page, HttpResponse.BodyHandlers.ofString());
+            List<Task> doneTasks = gson.fromJson(pageResponse.body(), listType);
+            HttpRequest unknown = HttpRequest.newBuilder().uri(URI.create(url + "?status=LATE")).GET().build();
+            HttpResponse<String> unknownResponse = client.send(unknown, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(OK, allResponse.statusCode());
+            assertEquals(2, newTasks.size());
+            assertTrue(newTasks.stream().allMatch(task -> task.getStatus() == Status.NEW));
+            assertEquals(1, doneTasks.size());
+            assertEquals(Status.DONE, doneTasks.get(0).getStatus());
+            assertTrue(pageResponse.headers().firstValue(HttpTaskServer.NEXT_CURSOR_HEADER).isPresent());
+            assertEquals(BAD_REQUEST, unknownResponse.statusCode());
+        } finally {
+            client.send(HttpRequest.newBuilder().uri(url).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @Test
+    void malformedPageParametersAreBadRequests() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String path : List.of("/tasks/task?limit=abc", "/tasks/subtask?cursor=abc",
+                "/tasks/epic?status=NEW&limit=1x", "/tasks/history?cursor=7x", "/tasks?cursor=tomorrow_1")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080" + path)).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(BAD_REQUEST, response.statusCode(), path);
+        }
+    }
+
+    @Test
+    void entityTagDependsOnEncoding() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpResponse<byte[]> identity = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        String identityTag = identity.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow();
+        HttpRequest gzipRequest = HttpRequest.newBuilder().uri(url)
+                .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.GZIP).GET().build();
+        HttpResponse<byte[]> gzip = client.send(gzipRequest, HttpResponse.BodyHandlers.ofByteArray());
+        String gzipTag = gzip.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(url)
+                .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.DEFLATE)
+                .header(HttpTaskServer.IF_NONE_MATCH_HEADER, gzipTag).GET().build();
+        HttpResponse<byte[]> notModified = client.send(conditional, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(CompressionUtils.GZIP,
+                gzip.headers().firstValue(CompressionUtils.CONTENT_ENCODING_HEADER).orElseThrow());
+        assertNotEquals(identityTag, gzipTag);
+        assertEquals(identityTag.substring(0, identityTag.length() - 1) + "-gzip\"", gzipTag);
+        assertEquals(NOT_MODIFIED, notModified.statusCode());
+        assertEquals(identityTag.substring(0, identityTag.length() - 1) + "-deflate\"",
+                notModified.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow());
+    }
+
+    @Test
+    void getTasksIfNoneMatch() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(url)
+                .header(HttpTaskServer.IF_NONE_MATCH_HEADER, etag).GET().build();
+        HttpResponse<String> notModified = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(NOT_MODIFIED, notModified.statusCode());
+        assertTrue(notModified.body().isEmpty());
+        assertEquals(etag, notModified.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow());
+
+        Task task = new Task("description", "title", Duration.ZERO, null);
+        client.send(HttpRequest.newBuilder().uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString(Managers.getGson().toJson(task))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        try {
+            HttpResponse<String> modified = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(OK, modified.statusCode());
+            assertNotEquals(etag, modified.headers().firstValue(HttpTaskServer.ETAG_HEADER).orElseThrow());
+        } finally {
+            client.send(HttpRequest.newBuilder().uri(url).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @Test
+    void getTasksCompressed() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        Gson gson = Managers.getGson();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("description " + i, "title " + i, Duration.ZERO, null);
+            HttpRequest post = HttpRequest.newBuilder().uri(url)
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+            client.send(post, HttpResponse.BodyHandlers.ofString());
+        }
+
+        try {
+            HttpRequest request = HttpRequest.newBuilder().uri(url)
+                    .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.GZIP).GET().build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            String body = new String(CompressionUtils.decompress(response.body(), CompressionUtils.GZIP),
+                    StandardCharsets.UTF_8);
+            Type listType = new TypeToken<ArrayList<Task>>(){}.getType();
+            List<Task> tasks = gson.fromJson(body, listType);
+
+            assertEquals(OK, response.statusCode());
+            assertEquals(CompressionUtils.GZIP,
+                    response.headers().firstValue(CompressionUtils.CONTENT_ENCODING_HEADER).orElseThrow());
+            assertEquals(3, tasks.size());
+        } finally {
+            client.send(HttpRequest.newBuilder().uri(url).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
 }
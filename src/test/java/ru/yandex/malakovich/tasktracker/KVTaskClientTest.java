@@ -0,0 +1,136 @@
+package ru.yandex.malakovich.tasktracker;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.yandex.malakovich.tasktracker.util.CompressionUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KVTaskClientTest {
+    private static KVServer kvServer;
+    private static KVTaskClient client;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        kvServer = new KVServer();
+        kvServer.start();
+        client = new KVTaskClient("http://localhost:" + KVServer.PORT);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        kvServer.stop();
+    }
+
+    @Test
+    void putAllStoresAndDeletesInOneBatch() {
+        client.put("batch/deleted", "old");
+        Map<String, String> values = new HashMap<>();
+        values.put("batch/one", "1");
+        values.put("batch/two", "{\"value\":2}");
+        values.put("batch/deleted", null);
+
+        client.putAll(values);
+
+        assertEquals("1", client.load("batch/one"));
+        assertEquals("{\"value\":2}", client.load("batch/two"));
+        assertNull(client.load("batch/deleted"));
+    }
+
+    @Test
+    void loadAllSkipsMissingKeys() {
+        client.put("load/one", "1");
+        client.put("load/two", "2");
+
+        Map<String, String> values = client.loadAll(List.of("load/one", "load/missing", "load/two"));
+
+        assertEquals(Map.of("load/one", "1", "load/two", "2"), values);
+    }
+
+    @Test
+    void asyncBatchesCompleteWithTheSameResult() {
+        client.putAllAsync(Map.of("async/one", "1")).join();
+
+        assertEquals(Map.of("async/one", "1"), client.loadAllAsync(List.of("async/one")).join());
+    }
+
+    @Test
+    void largeValuesAreCompressedBothWays() {
+        String value = "{\"title\":\"compressed\"}".repeat(KVTaskClient.DEFAULT_COMPRESSION_THRESHOLD);
+
+        client.put("compressed/one", value);
+        client.putAll(Map.of("compressed/two", value));
+
+        assertEquals(value, client.load("compressed/one"));
+        assertEquals(Map.of("compressed/one", value, "compressed/two", value),
+                client.loadAll(List.of("compressed/one", "compressed/two")));
+    }
+
+    @Test
+    void compressedResponseIsSmaller() throws IOException, InterruptedException {
+        String value = "{\"title\":\"compressed\"}".repeat(KVTaskClient.DEFAULT_COMPRESSION_THRESHOLD);
+        client.put("compressed/raw", value);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + KVServer.PORT + "/load/compressed/raw?API_TOKEN=DEBUG"))
+                .header(CompressionUtils.ACCEPT_ENCODING_HEADER, CompressionUtils.GZIP)
+                .GET()
+                .build();
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(Optional.of(CompressionUtils.GZIP),
+                response.headers().firstValue(CompressionUtils.CONTENT_ENCODING_HEADER));
+        assertTrue(response.body().length < value.length() / 10);
+        assertEquals(value, new String(CompressionUtils.decompress(response.body(), CompressionUtils.GZIP),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void unsupportedRequestEncodingIsRejected() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + KVServer.PORT + "/save/unsupported?API_TOKEN=DEBUG"))
+                .header(CompressionUtils.CONTENT_ENCODING_HEADER, "br")
+                .POST(HttpRequest.BodyPublishers.ofString("value"))
+                .build();
+
+        HttpResponse<Void> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.statusCode());
+        assertNull(client.load("unsupported"));
+    }
+
+    @Test
+    void brokenCompressedBodyIsBadRequest() throws IOException, InterruptedException {
+        byte[] compressed = CompressionUtils.compress("{\"broken\":\"value\"}".getBytes(StandardCharsets.UTF_8),
+                CompressionUtils.GZIP);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        for (String path : List.of("/save/broken", "/batch/save", "/batch/load")) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + KVServer.PORT + path + "?API_TOKEN=DEBUG"))
+                    .header(CompressionUtils.CONTENT_ENCODING_HEADER, CompressionUtils.GZIP)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(truncated))
+                    .build();
+
+            HttpResponse<Void> response = HttpClient.newHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.discarding());
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.statusCode(), path);
+        }
+        assertNull(client.load("broken"));
+    }
+}
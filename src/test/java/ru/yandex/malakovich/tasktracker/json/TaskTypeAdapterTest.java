@@ -0,0 +1,122 @@
+package ru.yandex.malakovich.tasktracker.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.Managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskTypeAdapterTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 5, 1, 10, 0);
+
+    private final Gson gson = Managers.getGson();
+
+    @Test
+    void taskRoundTrip() {
+        Task task = new Task(1, "description", Status.IN_PROGRESS, "title", Duration.ofMinutes(90), START);
+
+        String json = gson.toJson(task);
+        Task actual = gson.fromJson(json, Task.class);
+
+        assertEquals("{\"type\":\"TASK\",\"id\":1,\"title\":\"title\",\"description\":\"description\","
+                + "\"status\":\"IN_PROGRESS\",\"duration\":5400,\"startTime\":\"2022-05-01T10:00\"}", json);
+        assertEquals(task, actual);
+        assertEquals(task.getDuration(), actual.getDuration());
+        assertEquals(task.getStartTime(), actual.getStartTime());
+    }
+
+    @Test
+    void subtaskAndEpicRoundTrip() {
+        Subtask subtask = new Subtask(3, "subtask description", Status.DONE, 2, "subtask", Duration.ZERO, START);
+        Epic epic = Epic.create(2, "epic description", Set.of(subtask), "epic");
+
+        Subtask actualSubtask = gson.fromJson(gson.toJson(subtask), Subtask.class);
+        Epic actualEpic = gson.fromJson(gson.toJson(epic), Epic.class);
+
+        assertEquals(subtask, actualSubtask);
+        assertEquals(subtask.getEpicId(), actualSubtask.getEpicId());
+        assertEquals(epic, actualEpic);
+        assertEquals(epic.getStartTime(), actualEpic.getStartTime());
+    }
+
+    @Test
+    void listOfTasksKeepsClasses() {
+        Epic epic = Epic.create(1, "epic description", Set.of(), "epic");
+        Subtask subtask = new Subtask(2, "subtask description", Status.NEW, 1, "subtask", null, null);
+        Task task = new Task(3, "task description", "task", null, null);
+
+        List<Task> actual = gson.fromJson(gson.toJson(List.of(epic, subtask, task)),
+                new TypeToken<List<Task>>(){}.getType());
+
+        assertEquals(List.of(epic, subtask, task), actual);
+        assertEquals(Epic.class, actual.get(0).getClass());
+        assertEquals(Subtask.class, actual.get(1).getClass());
+    }
+
+    @Test
+    void readsObjectWithoutTypeAsRequestedClass() {
+        Subtask subtask = gson.fromJson("{\"id\":2,\"title\":\"subtask\",\"epicId\":1}", Subtask.class);
+
+        assertEquals(Integer.valueOf(1), subtask.getEpicId());
+    }
+
+    @Test
+    void readsReflectiveFormat() {
+        String json = "{\"title\":\"title\",\"description\":\"description\",\"status\":\"NEW\",\"id\":1,"
+                + "\"duration\":{\"seconds\":5400,\"nanos\":0},"
+                + "\"startTime\":{\"date\":{\"year\":2022,\"month\":5,\"day\":1},"
+                + "\"time\":{\"hour\":10,\"minute\":0,\"second\":0,\"nano\":0}}}";
+
+        Task task = gson.fromJson(json, Task.class);
+
+        assertEquals(Duration.ofMinutes(90), task.getDuration());
+        assertEquals(START, task.getStartTime());
+    }
+
+    @Test
+    void durationWithNanosRoundTrip() {
+        Duration duration = Duration.ofSeconds(5, 250_000_000);
+
+        assertEquals("5.250000000", gson.toJson(duration));
+        assertEquals(duration, gson.fromJson(gson.toJson(duration), Duration.class));
+    }
+
+    @Test
+    void durationOutOfRangeIsRejected() {
+        assertEquals(Duration.ofSeconds(1500), gson.fromJson("1.5e3", Duration.class));
+        assertEquals(Duration.ofSeconds(-2, 500_000_000), gson.fromJson("-1.5", Duration.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("1e30", Duration.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("-9.3e18", Duration.class));
+    }
+
+    @Test
+    void localDateTimeRoundTrip() {
+        List<LocalDateTime> dateTimes = List.of(START, START.withSecond(5), START.withNano(123_000_000),
+                START.withNano(1), LocalDateTime.of(-5, 1, 1, 0, 0), LocalDateTime.of(12345, 12, 31, 23, 59));
+
+        for (LocalDateTime dateTime : dateTimes) {
+            assertEquals(dateTime, gson.fromJson(gson.toJson(dateTime), LocalDateTime.class));
+        }
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"2022-13-01T10:00\"", LocalDateTime.class));
+    }
+
+    @Test
+    void wrongTypeIsRejected() {
+        String json = gson.toJson(new Task(1, "description", "title", null, null));
+
+        assertThrows(JsonParseException.class, () -> gson.fromJson(json, Epic.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"type\":\"STORY\"}", Task.class));
+    }
+}
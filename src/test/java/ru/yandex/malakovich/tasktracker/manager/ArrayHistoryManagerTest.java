@@ -0,0 +1,92 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.MutableClock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrayHistoryManagerTest {
+
+    @Test
+    void behavesLikeLinkedHistory() {
+        HistoryManager expected = new InMemoryHistoryManager(300);
+        HistoryManager actual = new ArrayHistoryManager(300);
+        Task[] tasks = new Task[1000];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i * 16, "description " + i, "title " + i, Duration.ZERO, null);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            Task task = tasks[random.nextInt(random.nextBoolean() ? 50 : tasks.length)];
+            if (random.nextInt(4) == 0) {
+                expected.remove(task);
+                actual.remove(task);
+            } else {
+                expected.add(task);
+                actual.add(task);
+            }
+
+            if (i % 1000 == 0) {
+                assertEquals(expected.getHistory(), actual.getHistory());
+                assertEquals(expected.getHistory(10), actual.getHistory(10));
+                assertEquals(expected.getHistory(task.getId(), 10), actual.getHistory(task.getId(), 10));
+            }
+        }
+        assertEquals(expected.getHistory(), actual.getHistory());
+    }
+
+    @Test
+    void expiresLikeLinkedHistory() {
+        MutableClock clock = new MutableClock();
+        HistoryManager expected = new InMemoryHistoryManager(100, Duration.ofSeconds(30), clock);
+        HistoryManager actual = new ArrayHistoryManager(100, Duration.ofSeconds(30), clock);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5_000; i++) {
+            Task task = new Task(random.nextInt(200), "description", "title", Duration.ZERO, null);
+            expected.add(task);
+            actual.add(task);
+            clock.advance(Duration.ofMillis(random.nextInt(50)));
+
+            if (i % 100 == 0) {
+                assertEquals(expected.getHistory(), actual.getHistory());
+            }
+        }
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(actual.getHistory().isEmpty());
+    }
+
+    @Test
+    void removedSlotsAreReused() {
+        HistoryManager historyManager = new ArrayHistoryManager();
+        Task task1 = new Task(1, "description", "title", Duration.ZERO, null);
+        Task task2 = new Task(2, "description", "title", Duration.ZERO, null);
+
+        for (int i = 0; i < 100; i++) {
+            historyManager.add(task1);
+            historyManager.add(task2);
+            historyManager.remove(task1);
+        }
+
+        assertEquals(List.of(task2), historyManager.getHistory());
+        historyManager.remove(task2);
+        assertTrue(historyManager.getHistory().isEmpty());
+        assertTrue(historyManager.getHistory(5).isEmpty());
+    }
+
+    @Test
+    void taskWithoutIdIsNotRecorded() {
+        HistoryManager historyManager = new ArrayHistoryManager();
+
+        historyManager.add(new Task("description", "title", Duration.ZERO, null));
+
+        assertTrue(historyManager.getHistory().isEmpty());
+    }
+}
@@ -0,0 +1,168 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.malakovich.tasktracker.exception.InvalidStartTimeException;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 500;
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    @Test
+    void concurrentSubtasksOfOneEpicAreAllLinked() throws Exception {
+        Epic epic = taskManager.createEpic(Epic.create("epic description", new HashSet<>(), "epic title"));
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                Subtask subtask = taskManager.createSubtask(new Subtask("description", Status.DONE, epic.getId(),
+                        "title", Duration.ZERO, null));
+                taskManager.getSubtaskById(subtask.getId());
+            }
+            return null;
+        });
+
+        Epic actual = taskManager.getEpicById(epic.getId());
+        assertEquals(THREADS * OPERATIONS, actual.getSubtasks().size());
+        assertEquals(THREADS * OPERATIONS, taskManager.getSubtasks().size());
+        assertEquals(Status.DONE, actual.getStatus());
+    }
+
+    @Test
+    void concurrentCreateAndDeleteKeepEpicConsistent() throws Exception {
+        Epic epic = taskManager.createEpic(Epic.create("epic description", new HashSet<>(), "epic title"));
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                Subtask subtask = taskManager.createSubtask(new Subtask("description", Status.NEW, epic.getId(),
+                        "title", Duration.ZERO, null));
+                if (i % 2 == 0) {
+                    taskManager.deleteSubtaskById(subtask.getId());
+                }
+            }
+            return null;
+        });
+
+        Epic actual = taskManager.getEpicById(epic.getId());
+        Set<Integer> subtaskIds = new HashSet<>();
+        for (Subtask subtask : taskManager.getSubtasks()) {
+            subtaskIds.add(subtask.getId());
+        }
+        assertEquals(subtaskIds, actual.getSubtasks());
+        assertEquals(THREADS * OPERATIONS / 2, subtaskIds.size());
+    }
+
+    @Test
+    void concurrentTasksNeverShareTimeSlot() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2022, Month.JUNE, 8, 0, 0);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                try {
+                    taskManager.createTask(new Task("description", "title", Duration.ofMinutes(30),
+                            start.plusMinutes(15L * i)));
+                } catch (InvalidStartTimeException exception) {
+                    rejected.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        List<Task> prioritized = taskManager.getPrioritizedTasksList();
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()));
+        }
+        assertEquals(THREADS * OPERATIONS, prioritized.size() + rejected.get());
+    }
+
+    @Test
+    void concurrentUpdateAndDeleteLeaveNoStaleSlot() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2022, Month.JUNE, 8, 0, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < OPERATIONS; i++) {
+                LocalDateTime slot = start.plusHours(i);
+                Task task = taskManager.createTask(new Task("description", "title", Duration.ofMinutes(30), slot));
+                Task moved = new Task(task.getId(), "description", Status.IN_PROGRESS, "title",
+                        Duration.ofMinutes(30), slot.plusMinutes(30));
+                CountDownLatch go = new CountDownLatch(1);
+                Future<?> update = executor.submit(() -> {
+                    go.await();
+                    taskManager.updateTask(moved);
+                    return null;
+                });
+                Future<?> delete = executor.submit(() -> {
+                    go.await();
+                    taskManager.deleteTaskById(task.getId());
+                    return null;
+                });
+                go.countDown();
+                update.get(30, TimeUnit.SECONDS);
+                delete.get(30, TimeUnit.SECONDS);
+
+                assertTrue(taskManager.getTasks().isEmpty());
+                assertTrue(taskManager.getPrioritizedTasksList().isEmpty());
+                Task next = taskManager.createTask(new Task("description", "title", Duration.ofMinutes(30),
+                        slot.plusMinutes(30)));
+                taskManager.deleteTaskById(next.getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentIdsAreUnique() throws Exception {
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                taskManager.createTask(new Task("description", "title", Duration.ZERO, null));
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * OPERATIONS, taskManager.getTasks().size());
+    }
+
+    private static void runConcurrently(Callable<Void> job) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return job.call();
+            }));
+        }
+
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
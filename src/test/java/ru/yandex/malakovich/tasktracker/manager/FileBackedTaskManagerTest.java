@@ -3,17 +3,29 @@ package ru.yandex.malakovich.tasktracker.manager;
 import org.junit.jupiter.api.Test;
 import ru.yandex.malakovich.tasktracker.exception.ManagerLoadException;
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.util.TestUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static ru.yandex.malakovich.tasktracker.manager.FileBackedTaskManager.HEADER;
+import static ru.yandex.malakovich.tasktracker.manager.FileBackedTaskManager.HISTORY_SUFFIX;
+import static ru.yandex.malakovich.tasktracker.manager.FileBackedTaskManager.JOURNAL_SUFFIX;
 
 public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     private File file;
@@ -87,6 +99,343 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
     }
 
+    @Test
+    void getByIdDoesNotRewriteSnapshot() throws IOException {
+        Epic epic = createTestEpicAndAddToManager("one");
+        Task task = createTestTaskAndAddToManager("one");
+        List<String> snapshot = Files.readAllLines(file.toPath());
+
+        taskManager.getTaskById(task.getId());
+        taskManager.getEpicById(epic.getId());
+
+        assertEquals(snapshot, Files.readAllLines(file.toPath()));
+        assertEquals(2, Files.readAllLines(new File(file.getPath() + HISTORY_SUFFIX).toPath()).size());
+        assertManagersStatesAreEqual(taskManager, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromFileDropsTornHistoryTail() throws IOException {
+        Task task = createTestTaskAndAddToManager("one");
+        Task other = createTestTaskAndAddToManager("two");
+        taskManager.getTaskById(task.getId());
+        File historyFile = new File(file.getPath() + HISTORY_SUFFIX);
+        // the cut-off view of the task with id 1 could be read as a view of another task
+        Files.write(historyFile.toPath(), "1a2b3c4d,VIEW,".getBytes(), StandardOpenOption.APPEND);
+
+        FileBackedTaskManager managerFromFile = FileBackedTaskManager.loadFromFile(file);
+
+        assertManagersStatesAreEqual(taskManager, managerFromFile);
+        // the next view cuts the tail off before appending, a broken line in the middle would fail the load
+        managerFromFile.getTaskById(other.getId());
+        assertEquals(List.of(task, other), FileBackedTaskManager.loadFromFile(file).history());
+    }
+
+    @Test
+    void loadFromFileWithMalformedHistoryRecord() throws IOException {
+        createTestTaskAndAddToManager("one");
+        File historyFile = new File(file.getPath() + HISTORY_SUFFIX);
+        try (TaskJournal journal = new TaskJournal(historyFile, 1)) {
+            journal.append("VIEW,one");
+            journal.append("DELETE,TASK,1");
+        }
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void historyFileIsOpenedOnFirstView() {
+        File file = createTempFile();
+        File historyFile = new File(file.getPath() + HISTORY_SUFFIX);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Task task = manager.createTask(TestUtils.createTestTask("one"));
+
+        assertFalse(historyFile.exists());
+
+        manager.getTaskById(task.getId());
+
+        assertTrue(historyFile.length() > 0);
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(file).history());
+    }
+
+    @Test
+    void saveTruncatesHistoryFile() throws IOException {
+        Task task = createTestTaskAndAddToManager("one");
+        taskManager.getTaskById(task.getId());
+        createTestTaskAndAddToManager("two");
+
+        assertTrue(Files.readAllLines(new File(file.getPath() + HISTORY_SUFFIX).toPath()).isEmpty());
+        assertManagersStatesAreEqual(taskManager, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromFileReplaysJournal() {
+        File file = createTempFile();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        Epic epic = journaled.createEpic(TestUtils.createTestEpic("one"));
+        Task task = journaled.createTask(TestUtils.createTestTask("one"));
+        Subtask subtask = journaled.createSubtask(TestUtils.createTestSubtask("one", epic.getId()));
+        Task deleted = journaled.createTask(TestUtils.createTestTask("two"));
+
+        journaled.getTaskById(task.getId());
+        journaled.getSubtaskById(subtask.getId());
+        journaled.getEpicById(epic.getId());
+        journaled.getTaskById(task.getId());
+        journaled.deleteTaskById(deleted.getId());
+        journaled.close();
+
+        TaskManager managerFromFile = FileBackedTaskManager.loadFromFile(file, true);
+
+        assertManagersStatesAreEqual(journaled, managerFromFile);
+    }
+
+    @Test
+    void loadFromFileDropsTornJournalTail() throws IOException {
+        File file = createTempFile();
+        File journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        Task task = journaled.createTask(TestUtils.createTestTask("one"));
+        journaled.getTaskById(task.getId());
+        journaled.close();
+        long length = journalFile.length();
+        Files.write(journalFile.toPath(), "0badc0de,DELETE,TASK,".getBytes(), StandardOpenOption.APPEND);
+
+        FileBackedTaskManager managerFromFile = FileBackedTaskManager.loadFromFile(file, true);
+
+        assertManagersStatesAreEqual(journaled, managerFromFile);
+        assertEquals(length, journalFile.length());
+        Task next = managerFromFile.createTask(TestUtils.createTestTask("two"));
+        managerFromFile.close();
+        assertEquals(List.of(task, next), FileBackedTaskManager.loadFromFile(file, true).getTasks());
+    }
+
+    @Test
+    void loadFromFileDropsJournalTailWithWrongChecksum() throws IOException {
+        File file = createTempFile();
+        File journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        Task task = journaled.createTask(TestUtils.createTestTask("one"));
+        journaled.close();
+        Files.write(journalFile.toPath(), "00000000,VIEW,1\n".getBytes(), StandardOpenOption.APPEND);
+
+        assertEquals(List.of(task), FileBackedTaskManager.loadFromFile(file, true).getTasks());
+    }
+
+    @Test
+    void loadFromFileWithCorruptedJournalRecord() throws IOException {
+        File file = createTempFile();
+        File journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        journaled.createTask(TestUtils.createTestTask("one"));
+        journaled.createTask(TestUtils.createTestTask("two"));
+        journaled.close();
+        byte[] bytes = Files.readAllBytes(journalFile.toPath());
+        // a byte of the first record after its checksum and the comma
+        bytes[12] ^= 1;
+        Files.write(journalFile.toPath(), bytes);
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file, true));
+    }
+
+    @Test
+    void journaledManagerDoesNotRewriteSnapshot() throws IOException {
+        File file = createTempFile();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        List<String> snapshot = Files.readAllLines(file.toPath());
+
+        Task task = journaled.createTask(TestUtils.createTestTask("one"));
+        journaled.getTaskById(task.getId());
+
+        assertEquals(snapshot, Files.readAllLines(file.toPath()));
+        assertEquals(2, Files.readAllLines(new File(file.getPath() + JOURNAL_SUFFIX).toPath()).size());
+        journaled.close();
+    }
+
+    @Test
+    void compactFoldsJournalIntoSnapshot() throws IOException {
+        File file = createTempFile();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, true);
+        Task task = journaled.createTask(TestUtils.createTestTask("one"));
+        journaled.getTaskById(task.getId());
+
+        journaled.compact();
+        journaled.close();
+
+        assertTrue(Files.readAllLines(new File(file.getPath() + JOURNAL_SUFFIX).toPath()).isEmpty());
+        assertManagersStatesAreEqual(journaled, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void debouncedManagerCoalescesSaves() {
+        File file = createTempFile();
+        FileBackedTaskManager debounced = new FileBackedTaskManager(file, PersistencePolicy.debounced(60_000));
+        for (int i = 0; i < 10; i++) {
+            debounced.createTask(TestUtils.createTestTask(String.valueOf(i)));
+        }
+
+        debounced.close();
+
+        assertEquals(9, debounced.getCoalescedSaves());
+        assertManagersStatesAreEqual(debounced, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void everyNOperationsManagerSavesInBackground() {
+        File file = createTempFile();
+        FileBackedTaskManager batched = new FileBackedTaskManager(file, PersistencePolicy.everyOperations(5));
+        for (int i = 0; i < 12; i++) {
+            batched.createTask(TestUtils.createTestTask(String.valueOf(i)));
+        }
+
+        batched.flush();
+
+        assertManagersStatesAreEqual(batched, FileBackedTaskManager.loadFromFile(file));
+        assertTrue(batched.getCoalescedSaves() >= 9);
+        batched.close();
+    }
+
+    @Test
+    void loadFromBinarySnapshot() {
+        File file = createTempFile();
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, false, PersistencePolicy.writeThrough(),
+                SnapshotFormat.BINARY);
+        Epic epic = binary.createEpic(TestUtils.createTestEpic("one"));
+        Task task = binary.createTask(TestUtils.createTestTask("one"));
+        Subtask subtask = binary.createSubtask(TestUtils.createTestSubtask("one", epic.getId()));
+        binary.createSubtask(TestUtils.createTestSubtask("two", epic.getId()));
+
+        binary.getSubtaskById(subtask.getId());
+        binary.getTaskById(task.getId());
+        binary.getEpicById(epic.getId());
+        binary.close();
+
+        FileBackedTaskManager managerFromFile = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.of(file));
+        assertEquals(SnapshotFormat.BINARY, managerFromFile.getFormat());
+        assertManagersStatesAreEqual(binary, managerFromFile);
+    }
+
+    @Test
+    void managerLoadedFromBinarySnapshotKeepsWritingBinary() {
+        File file = createTempFile();
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, false, PersistencePolicy.writeThrough(),
+                SnapshotFormat.BINARY);
+        binary.createTask(TestUtils.createTestTask("one"));
+        binary.close();
+
+        FileBackedTaskManager managerFromFile = FileBackedTaskManager.loadFromFile(file);
+        managerFromFile.createTask(TestUtils.createTestTask("two"));
+        managerFromFile.close();
+
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.of(file));
+        assertManagersStatesAreEqual(managerFromFile, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromCorruptedBinarySnapshot() throws IOException {
+        File file = createTempFile();
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, false, PersistencePolicy.writeThrough(),
+                SnapshotFormat.BINARY);
+        binary.createTask(TestUtils.createTestTask("one"));
+        binary.close();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file.toPath(), bytes);
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromTruncatedBinarySnapshot() throws IOException {
+        File file = createTempFile();
+        FileBackedTaskManager binary = new FileBackedTaskManager(file, false, PersistencePolicy.writeThrough(),
+                SnapshotFormat.BINARY);
+        binary.createTask(TestUtils.createTestTask("one"));
+        binary.close();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromFileWithLinesLongerThanReadBuffer() throws IOException {
+        Epic epic = createTestEpicAndAddToManager("one");
+        Task task = createTestTaskAndAddToManager("one");
+        Subtask subtask = createTestSubtaskAndAddToManager("one", epic.getId());
+        taskManager.getSubtaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+        createTestTaskAndAddToManager("two");
+        Map<Integer, Task> allTasks = new LinkedHashMap<>();
+        Set<Integer> history = new LinkedHashSet<>();
+
+        CsvSnapshotReader.read(file, allTasks, history, 8);
+
+        assertEquals(4, allTasks.size());
+        assertEquals(taskManager.getTasks().get(0), allTasks.get(task.getId()));
+        assertEquals(taskManager.getSubtasks().get(0), allTasks.get(subtask.getId()));
+        assertEquals(List.of(subtask.getId(), task.getId()), new ArrayList<>(history));
+    }
+
+    @Test
+    void loadFromFileWithWindowsLineEndings() throws IOException {
+        Task task = createTestTaskAndAddToManager("one");
+        taskManager.getTaskById(task.getId());
+        String snapshot = Files.readString(file.toPath());
+        Files.writeString(file.toPath(), snapshot.replace("\n", "\r\n"));
+
+        assertManagersStatesAreEqual(taskManager, FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromFileWithMalformedLine() {
+        File file = createTempFile(HEADER, "1,TASK,title,NEW,description,PT30M,not a date,", "", "1");
+
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+    }
+
+    @Test
+    void loadFromFileInParallel() throws IOException {
+        File file = createTempFile();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistencePolicy.debounced(60_000));
+        for (int i = 0; i < 100; i++) {
+            Epic epic = manager.createEpic(TestUtils.createTestEpic(String.valueOf(i)));
+            Task task = manager.createTask(TestUtils.createTestTask(String.valueOf(i)));
+            manager.createSubtask(TestUtils.createTestSubtask(String.valueOf(i), epic.getId()));
+            manager.getTaskById(task.getId());
+        }
+        manager.close();
+        Map<Integer, Task> sequentialTasks = new LinkedHashMap<>();
+        Set<Integer> sequentialHistory = new LinkedHashSet<>();
+        Map<Integer, Task> parallelTasks = new LinkedHashMap<>();
+        Set<Integer> parallelHistory = new LinkedHashSet<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        CsvSnapshotReader.read(file, sequentialTasks, sequentialHistory);
+        CsvSnapshotReader.read(file, parallelTasks, parallelHistory, pool, 256);
+
+        assertEquals(300, parallelTasks.size());
+        assertEquals(new ArrayList<>(sequentialTasks.entrySet()), new ArrayList<>(parallelTasks.entrySet()));
+        assertEquals(new ArrayList<>(sequentialHistory), new ArrayList<>(parallelHistory));
+        assertManagersStatesAreEqual(manager,
+                FileBackedTaskManager.loadFromFile(file, false, PersistencePolicy.writeThrough(), pool));
+        pool.shutdown();
+    }
+
+    @Test
+    void loadFromFileInParallelWithMalformedLine() throws IOException {
+        Task task = createTestTaskAndAddToManager("one");
+        createTestTaskAndAddToManager("two");
+        List<String> lines = Files.readAllLines(file.toPath());
+        lines.add(2, task.getId() + ",TASK,title,NEW,description,not a duration,null,");
+        Files.write(file.toPath(), lines);
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        assertThrows(ManagerLoadException.class, () -> CsvSnapshotReader.read(file, new LinkedHashMap<>(),
+                new LinkedHashSet<>(), pool, 16));
+        pool.shutdown();
+    }
+
     private static File createTempFile() {
         return createTempFile("");
     }
@@ -100,6 +449,8 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
             throw new RuntimeException(e.getMessage(), e);
         }
         file.deleteOnExit();
+        new File(file.getPath() + JOURNAL_SUFFIX).deleteOnExit();
+        new File(file.getPath() + HISTORY_SUFFIX).deleteOnExit();
 
         return file;
     }
@@ -109,5 +460,13 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEquals(taskManager.getTasks(), managerFromFile.getTasks());
         assertEquals(taskManager.getSubtasks(), managerFromFile.getSubtasks());
         assertEquals(taskManager.history(), managerFromFile.history());
+        for (Status status : Status.values()) {
+            assertEquals(taskManager.getEpics(status, null, Integer.MAX_VALUE),
+                    managerFromFile.getEpics(status, null, Integer.MAX_VALUE));
+            assertEquals(taskManager.getTasks(status, null, Integer.MAX_VALUE),
+                    managerFromFile.getTasks(status, null, Integer.MAX_VALUE));
+            assertEquals(taskManager.getSubtasks(status, null, Integer.MAX_VALUE),
+                    managerFromFile.getSubtasks(status, null, Integer.MAX_VALUE));
+        }
     }
 }
@@ -6,8 +6,10 @@ import ru.yandex.malakovich.tasktracker.model.Epic;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
 import ru.yandex.malakovich.tasktracker.util.Managers;
+import ru.yandex.malakovich.tasktracker.util.MutableClock;
 import ru.yandex.malakovich.tasktracker.util.TestUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +32,17 @@ class HistoryManagerTest {
         assertTrue(historyManager.getHistory().isEmpty());
     }
 
+    @Test
+    void negativeLimitIsRejected() {
+        for (HistoryManager manager : List.of(historyManager, new ArrayHistoryManager(10))) {
+            manager.add(TestUtils.createTestTask("one"));
+
+            assertThrows(IllegalArgumentException.class, () -> manager.getHistory(-1));
+            assertThrows(IllegalArgumentException.class, () -> manager.getHistory(null, -1));
+            assertTrue(manager.getHistory(0).isEmpty());
+        }
+    }
+
     @Test
     void removeNull() {
         assertDoesNotThrow(() -> historyManager.remove(null));
@@ -123,6 +136,30 @@ class HistoryManagerTest {
         assertEquals(taskList, historyManager.getHistory());
     }
 
+    @Test
+    void getHistoryPaged() {
+        Epic epic = TestUtils.createTestEpic("one");
+        Task task = TestUtils.createTestTask("one");
+        Subtask subtask = TestUtils.createTestSubtask("one", epic.getId());
+
+        historyManager.add(epic);
+        historyManager.add(task);
+        historyManager.add(subtask);
+
+        assertEquals(List.of(epic, task), historyManager.getHistory(null, 2));
+        assertEquals(List.of(subtask), historyManager.getHistory(task.getId(), 2));
+        assertTrue(historyManager.getHistory(subtask.getId(), 2).isEmpty());
+    }
+
+    @Test
+    void getHistoryPagedAfterRemovedTask() {
+        Task task = TestUtils.createTestTask("one");
+        historyManager.add(task);
+        historyManager.remove(task);
+
+        assertTrue(historyManager.getHistory(task.getId(), 2).isEmpty());
+    }
+
     @Test
     void addNull() {
         assertDoesNotThrow(() -> historyManager.add(null));
@@ -132,4 +169,58 @@ class HistoryManagerTest {
     void getHistoryWhenEmpty() {
         assertEquals(new ArrayList<>(), historyManager.getHistory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getLatestHistory() {
+        Epic epic = TestUtils.createTestEpic("one");
+        Task task = TestUtils.createTestTask("one");
+        Subtask subtask = TestUtils.createTestSubtask("one", epic.getId());
+
+        historyManager.add(epic);
+        historyManager.add(task);
+        historyManager.add(subtask);
+        historyManager.add(epic);
+
+        assertEquals(List.of(subtask, epic), historyManager.getHistory(2));
+        assertEquals(List.of(task, subtask, epic), historyManager.getHistory(10));
+        assertTrue(historyManager.getHistory(0).isEmpty());
+    }
+
+    @Test
+    void boundedHistoryEvictsOldestView() {
+        HistoryManager bounded = new InMemoryHistoryManager(2);
+        Task task1 = TestUtils.createTestTask("one");
+        Task task2 = TestUtils.createTestTask("two");
+        Task task3 = TestUtils.createTestTask("three");
+
+        bounded.add(task1);
+        bounded.add(task2);
+        bounded.add(task1);
+        bounded.add(task3);
+
+        assertEquals(List.of(task1, task3), bounded.getHistory());
+        assertTrue(bounded.getHistory(task2.getId(), 2).isEmpty());
+    }
+
+    @Test
+    void expiredViewsAreEvicted() {
+        MutableClock clock = new MutableClock();
+        HistoryManager expiring = new InMemoryHistoryManager(10, Duration.ofMinutes(1), clock);
+        Task task1 = TestUtils.createTestTask("one");
+        Task task2 = TestUtils.createTestTask("two");
+
+        expiring.add(task1);
+        clock.advance(Duration.ofSeconds(30));
+        expiring.add(task2);
+        clock.advance(Duration.ofSeconds(30));
+
+        assertEquals(List.of(task2), expiring.getHistory());
+
+        expiring.add(task2);
+        clock.advance(Duration.ofSeconds(59));
+
+        assertEquals(List.of(task2), expiring.getHistory(5));
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(expiring.getHistory().isEmpty());
+    }
+}
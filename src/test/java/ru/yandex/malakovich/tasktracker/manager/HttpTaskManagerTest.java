@@ -2,11 +2,26 @@ package ru.yandex.malakovich.tasktracker.manager;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import ru.yandex.malakovich.tasktracker.KVServer;
+import ru.yandex.malakovich.tasktracker.KVTaskClient;
+import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
+import ru.yandex.malakovich.tasktracker.model.Subtask;
+import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.storage.InMemoryKVStorage;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
+    private static final String HOST = "http://localhost:8087";
     private static KVServer kvServer;
 
     @BeforeAll
@@ -22,6 +37,77 @@ public class HttpTaskManagerTest extends TaskManagerTest<HttpTaskManager> {
 
     @Override
     protected HttpTaskManager createManager() {
-        return new HttpTaskManager("http://localhost:8087");
+        return new HttpTaskManager(HOST);
+    }
+
+    @Test
+    void loadRestoresEntitiesAndHistoryOrder() {
+        Task task = taskManager.createTask(new Task("description", "task", Duration.ZERO, null));
+        Epic epic = taskManager.createEpic(Epic.create("description", new HashSet<>(), "epic"));
+        Subtask subtask = taskManager.createSubtask(new Subtask("description", Status.DONE, epic.getId(),
+                "subtask", Duration.ZERO, null));
+        taskManager.getSubtaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+        taskManager.getEpicById(epic.getId());
+        taskManager.getSubtaskById(subtask.getId());
+
+        HttpTaskManager loaded = new HttpTaskManager(HOST, true);
+
+        assertEquals(taskManager.getTasks(), loaded.getTasks());
+        assertEquals(taskManager.getEpics(), loaded.getEpics());
+        assertEquals(taskManager.getSubtasks(), loaded.getSubtasks());
+        assertEquals(List.of(task, taskManager.getEpics().get(0), subtask), loaded.history());
+        assertNotEquals(subtask.getId(), loaded.createTask(new Task("description", "new", Duration.ZERO, null))
+                .getId());
+    }
+
+    @Test
+    void updateAndDeleteChangeOnlyTheirKeys() {
+        Task task = taskManager.createTask(new Task("description", "task", Duration.ZERO, null));
+        Task other = taskManager.createTask(new Task("description", "other", Duration.ZERO, null));
+        taskManager.getTaskById(other.getId());
+        KVTaskClient client = new KVTaskClient(HOST);
+        String manifest = client.load(HttpTaskManager.MANIFEST_KEY);
+
+        taskManager.updateTask(new Task(task.getId(), "description", Status.DONE, "updated", Duration.ZERO, null));
+
+        assertEquals(manifest, client.load(HttpTaskManager.MANIFEST_KEY));
+        assertTrue(client.load("task/" + task.getId()).contains("updated"));
+
+        taskManager.deleteTaskById(other.getId());
+
+        assertNotEquals(manifest, client.load(HttpTaskManager.MANIFEST_KEY));
+        assertNull(client.load("task/" + other.getId()));
+        assertNull(client.load(HttpTaskManager.HISTORY_PREFIX + other.getId()));
+    }
+
+    @Test
+    void failedSaveIsRepeatedByTheNextOne() throws IOException {
+        AtomicBoolean failing = new AtomicBoolean();
+        kvServer.stop();
+        kvServer = new KVServer(new InMemoryKVStorage() {
+            @Override
+            public void apply(Map<String, String> changes) {
+                if (failing.get()) {
+                    throw new IllegalStateException("storage is unavailable");
+                }
+                super.apply(changes);
+            }
+        });
+        kvServer.start();
+        HttpTaskManager manager = new HttpTaskManager(HOST);
+        Task first = manager.createTask(new Task("description", "first", Duration.ZERO, null));
+
+        failing.set(true);
+        assertThrows(RuntimeException.class,
+                () -> manager.createTask(new Task("description", "second", Duration.ZERO, null)));
+        failing.set(false);
+        manager.getTaskById(first.getId());
+
+        HttpTaskManager loaded = new HttpTaskManager(HOST, true);
+
+        assertEquals(manager.getTasks(), loaded.getTasks());
+        assertEquals(2, loaded.getTasks().size());
+        assertEquals(manager.history(), loaded.history());
     }
 }
@@ -0,0 +1,8 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+public class SynchronizedTaskManagerTest extends TaskManagerTest<SynchronizedTaskManager> {
+    @Override
+    protected SynchronizedTaskManager createManager() {
+        return new SynchronizedTaskManager(new InMemoryTaskManager());
+    }
+}
@@ -3,11 +3,14 @@ package ru.yandex.malakovich.tasktracker.manager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.malakovich.tasktracker.model.Epic;
+import ru.yandex.malakovich.tasktracker.model.Status;
 import ru.yandex.malakovich.tasktracker.model.Subtask;
 import ru.yandex.malakovich.tasktracker.model.Task;
+import ru.yandex.malakovich.tasktracker.model.Type;
 import ru.yandex.malakovich.tasktracker.util.TestUtils;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -207,6 +210,25 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertDoesNotThrow(() -> taskManager.updateTask(null));
     }
 
+    @Test
+    void updateWithoutIdChangesNothing() {
+        Epic epic = createTestEpicAndAddToManager("one");
+        createTestTaskAndAddToManager("one");
+        createTestSubtaskAndAddToManager("one", epic.getId());
+        List<Epic> epics = taskManager.getEpics();
+        List<Task> tasks = taskManager.getTasks();
+        List<Subtask> subtasks = taskManager.getSubtasks();
+
+        assertDoesNotThrow(() -> taskManager.updateEpic(Epic.create("description", Set.of(), "title")));
+        assertDoesNotThrow(() -> taskManager.updateTask(new Task("description", "title", Duration.ZERO, null)));
+        assertDoesNotThrow(() -> taskManager.updateSubtask(new Subtask(null, "description", Status.DONE,
+                epic.getId(), "title", Duration.ZERO, null)));
+
+        assertEquals(epics, taskManager.getEpics());
+        assertEquals(tasks, taskManager.getTasks());
+        assertEquals(subtasks, taskManager.getSubtasks());
+    }
+
     @Test
     void updateSubtask() {
         Epic oldEpic = createTestEpicAndAddToManager("one");
@@ -307,6 +329,183 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(taskList, taskManager.history());
     }
 
+    @Test
+    void getTasksPaged() {
+        Task task1 = createTestTaskAndAddToManager("one");
+        Task task2 = createTestTaskAndAddToManager("two");
+        Task task3 = createTestTaskAndAddToManager("three");
+
+        assertEquals(List.of(task1, task2), taskManager.getTasks(null, 2));
+        assertEquals(List.of(task3), taskManager.getTasks(task2.getId(), 2));
+        assertTrue(taskManager.getTasks(task3.getId(), 2).isEmpty());
+        assertTrue(taskManager.getTasks(null, 0).isEmpty());
+    }
+
+    @Test
+    void getTasksPagedAfterDeletedCursor() {
+        Task task1 = createTestTaskAndAddToManager("one");
+        Task task2 = createTestTaskAndAddToManager("two");
+        Task task3 = createTestTaskAndAddToManager("three");
+        taskManager.deleteTaskById(task2.getId());
+
+        assertEquals(List.of(task3), taskManager.getTasks(task2.getId(), 2));
+        assertEquals(List.of(task1, task3), taskManager.getTasks(null, 5));
+    }
+
+    @Test
+    void getTasksByStatus() {
+        Task task1 = createTestTaskAndAddToManager("one");
+        Task task2 = createTestTaskAndAddToManager("two");
+        Task task3 = createTestTaskAndAddToManager("three");
+        Task task4 = createTestTaskAndAddToManager("four");
+        Task doneTask2 = new Task(task2.getId(), task2.getDescription(), Status.DONE, task2.getTitle(),
+                task2.getDuration(), task2.getStartTime());
+        taskManager.updateTask(doneTask2);
+        taskManager.deleteTaskById(task3.getId());
+
+        assertEquals(List.of(task1, task4), taskManager.getTasks(Status.NEW, null, 5));
+        assertEquals(List.of(task4), taskManager.getTasks(Status.NEW, task1.getId(), 5));
+        assertEquals(List.of(task1), taskManager.getTasks(Status.NEW, null, 1));
+        assertEquals(List.of(doneTask2), taskManager.getTasks(Status.DONE, null, 5));
+        assertTrue(taskManager.getTasks(Status.IN_PROGRESS, null, 5).isEmpty());
+
+        taskManager.deleteAllTasks();
+
+        assertTrue(taskManager.getTasks(Status.NEW, null, 5).isEmpty());
+        assertTrue(taskManager.getTasks(Status.DONE, null, 5).isEmpty());
+    }
+
+    @Test
+    void getEpicsAndSubtasksByStatus() {
+        Epic epic1 = createTestEpicAndAddToManager("one");
+        Epic epic2 = createTestEpicAndAddToManager("two");
+        Subtask subtask1 = createTestSubtaskAndAddToManager("one", epic1.getId());
+        Subtask subtask2 = createTestSubtaskAndAddToManager("two", epic1.getId());
+        Subtask doneSubtask1 = new Subtask(subtask1.getId(), subtask1.getDescription(), Status.DONE, epic1.getId(),
+                subtask1.getTitle(), subtask1.getDuration(), subtask1.getStartTime());
+        taskManager.updateSubtask(doneSubtask1);
+
+        assertEquals(List.of(taskManager.getEpicById(epic1.getId())),
+                taskManager.getEpics(Status.IN_PROGRESS, null, 5));
+        assertEquals(List.of(epic2), taskManager.getEpics(Status.NEW, null, 5));
+        assertEquals(List.of(subtask2), taskManager.getSubtasks(Status.NEW, null, 5));
+        assertEquals(List.of(doneSubtask1), taskManager.getSubtasks(Status.DONE, null, 5));
+
+        taskManager.deleteSubtaskById(subtask2.getId());
+
+        assertEquals(List.of(taskManager.getEpicById(epic1.getId())), taskManager.getEpics(Status.DONE, null, 5));
+        assertTrue(taskManager.getEpics(Status.IN_PROGRESS, null, 5).isEmpty());
+        assertTrue(taskManager.getSubtasks(Status.NEW, null, 5).isEmpty());
+
+        taskManager.deleteEpicById(epic1.getId());
+
+        assertTrue(taskManager.getEpics(Status.DONE, null, 5).isEmpty());
+        assertTrue(taskManager.getSubtasks(Status.DONE, null, 5).isEmpty());
+        assertEquals(List.of(epic2), taskManager.getEpics(Status.NEW, null, 5));
+    }
+
+    @Test
+    void getEpicsAndSubtasksPaged() {
+        Epic epic1 = createTestEpicAndAddToManager("one");
+        Epic epic2 = createTestEpicAndAddToManager("two");
+        Subtask subtask1 = createTestSubtaskAndAddToManager("one", epic1.getId());
+        Subtask subtask2 = createTestSubtaskAndAddToManager("two", epic1.getId());
+
+        assertEquals(List.of(taskManager.getEpicById(epic1.getId())), taskManager.getEpics(null, 1));
+        assertEquals(List.of(epic2), taskManager.getEpics(epic1.getId(), 1));
+        assertEquals(List.of(subtask2), taskManager.getSubtasks(subtask1.getId(), 1));
+    }
+
+    @Test
+    void getPrioritizedTasksListPaged() {
+        LocalDateTime start = LocalDateTime.of(2022, 5, 1, 10, 0);
+        Task late = taskManager.createTask(new Task("late", "late", Duration.ofMinutes(10), start.plusHours(2)));
+        Task early = taskManager.createTask(new Task("early", "early", Duration.ofMinutes(10), start));
+        Task unscheduled = createTestTaskAndAddToManager("one");
+
+        List<Task> first = taskManager.getPrioritizedTasksList(null, 2);
+        assertEquals(List.of(early, late), first);
+        assertEquals(List.of(unscheduled), taskManager.getPrioritizedTasksList(first.get(1), 2));
+
+        Task probe = new Task(early.getId(), null, null, null, early.getStartTime());
+        taskManager.deleteTaskById(early.getId());
+        assertEquals(List.of(late, unscheduled), taskManager.getPrioritizedTasksList(probe, 2));
+    }
+
+    @Test
+    void historyPaged() {
+        Task task1 = createTestTaskAndAddToManager("one");
+        Task task2 = createTestTaskAndAddToManager("two");
+        Task task3 = createTestTaskAndAddToManager("three");
+        taskManager.getTaskById(task3.getId());
+        taskManager.getTaskById(task1.getId());
+        taskManager.getTaskById(task2.getId());
+
+        assertEquals(List.of(task3, task1), taskManager.history(null, 2));
+        assertEquals(List.of(task2), taskManager.history(task1.getId(), 2));
+        assertTrue(taskManager.history(-1, 2).isEmpty());
+    }
+
+    @Test
+    void latestHistory() {
+        Task task1 = createTestTaskAndAddToManager("one");
+        Task task2 = createTestTaskAndAddToManager("two");
+        Task task3 = createTestTaskAndAddToManager("three");
+        taskManager.getTaskById(task3.getId());
+        taskManager.getTaskById(task1.getId());
+        taskManager.getTaskById(task2.getId());
+
+        assertEquals(List.of(task1, task2), taskManager.history(2));
+        assertEquals(List.of(task3, task1, task2), taskManager.history(5));
+    }
+
+    @Test
+    void versionsGrowWithChangesOfTheirCollections() {
+        long version = taskManager.getVersion();
+        long tasksVersion = taskManager.getVersion(Type.TASK);
+        long epicsVersion = taskManager.getVersion(Type.EPIC);
+
+        Task task = createTestTaskAndAddToManager("one");
+        assertTrue(taskManager.getVersion(Type.TASK) > tasksVersion);
+        assertEquals(epicsVersion, taskManager.getVersion(Type.EPIC));
+        assertTrue(taskManager.getVersion() > version);
+
+        long historyVersion = taskManager.getHistoryVersion();
+        tasksVersion = taskManager.getVersion(Type.TASK);
+        taskManager.getTaskById(task.getId());
+        assertTrue(taskManager.getHistoryVersion() > historyVersion);
+        assertEquals(tasksVersion, taskManager.getVersion(Type.TASK));
+
+        taskManager.deleteTaskById(task.getId());
+        assertTrue(taskManager.getVersion(Type.TASK) > tasksVersion);
+    }
+
+    @Test
+    void versionsDontChangeOnReads() {
+        Epic epic = createTestEpicAndAddToManager("one");
+        createTestSubtaskAndAddToManager("one", epic.getId());
+        long version = taskManager.getVersion();
+
+        taskManager.getEpics();
+        taskManager.getSubtasks(null, 10);
+        taskManager.getPrioritizedTasksList();
+        taskManager.history();
+
+        assertEquals(version, taskManager.getVersion());
+    }
+
+    @Test
+    void subtaskChangesEpicsVersion() {
+        Epic epic = createTestEpicAndAddToManager("one");
+        long epicsVersion = taskManager.getVersion(Type.EPIC);
+        long subtasksVersion = taskManager.getVersion(Type.SUBTASK);
+
+        createTestSubtaskAndAddToManager("one", epic.getId());
+
+        assertTrue(taskManager.getVersion(Type.EPIC) > epicsVersion);
+        assertTrue(taskManager.getVersion(Type.SUBTASK) > subtasksVersion);
+    }
+
     @Test
     void validateTimeWithNull() {
         Task task = new Task(null, "task description", "task title",
@@ -0,0 +1,109 @@
+package ru.yandex.malakovich.tasktracker.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.yandex.malakovich.tasktracker.exception.InvalidStartTimeException;
+import ru.yandex.malakovich.tasktracker.model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimeSlotIndexTest {
+    private static int id = 0;
+
+    @ParameterizedTest
+    @MethodSource("validateSource")
+    void validate(Task task, List<Task> indexed, boolean expectedToFit) {
+        TimeSlotIndex index = new TimeSlotIndex();
+        indexed.forEach(index::add);
+
+        Executable validateExecutable = () -> index.validate(task);
+        if (expectedToFit) {
+            assertDoesNotThrow(validateExecutable);
+        } else {
+            assertThrows(InvalidStartTimeException.class, validateExecutable);
+        }
+    }
+
+    @Test
+    void taskMayOverlapItsOwnSlot() {
+        TimeSlotIndex index = new TimeSlotIndex();
+        Task task = task(at(16, 0), Duration.ofMinutes(60));
+        index.add(task);
+
+        Task moved = new Task(task.getId(), "description", "title", Duration.ofMinutes(60), at(16, 30));
+
+        assertDoesNotThrow(() -> index.validate(moved));
+    }
+
+    @Test
+    void ownSlotDoesNotHideOverlapWithPreviousSlot() {
+        TimeSlotIndex index = new TimeSlotIndex();
+        Task first = task(at(15, 0), Duration.ofMinutes(60));
+        Task second = task(at(16, 0), Duration.ofMinutes(60));
+        index.add(first);
+        index.add(second);
+
+        Task moved = new Task(second.getId(), "description", "title", Duration.ofMinutes(60), at(15, 30));
+
+        assertEquals(first, index.findOverlapping(moved));
+    }
+
+    @Test
+    void removedSlotIsFree() {
+        TimeSlotIndex index = new TimeSlotIndex();
+        Task task = task(at(16, 0), Duration.ofMinutes(60));
+        index.add(task);
+        index.remove(task);
+
+        assertNull(index.findOverlapping(task(at(16, 0), Duration.ofMinutes(60))));
+    }
+
+    private static Stream<Arguments> validateSource() {
+        Duration sixtyMin = Duration.ofMinutes(60);
+        Duration twentyMin = Duration.ofMinutes(20);
+
+        return Stream.of(
+                // @formatter:off
+                Arguments.of(task(null, null)           , List.of(task(null, null))                                    , true ),
+                Arguments.of(task(null, null)           , List.of(task(at(16, 0), sixtyMin))                           , true ),
+                Arguments.of(task(at(15, 30), sixtyMin) , List.of(task(null, null))                                    , true ),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of()                                                    , true ),
+                Arguments.of(task(at(17, 0), sixtyMin)  , List.of(task(at(16, 0), sixtyMin))                           , true ),
+                Arguments.of(task(at(15, 0), sixtyMin)  , List.of(task(at(16, 0), sixtyMin))                           , true ),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of(task(at(15, 0), sixtyMin), task(at(17, 0), sixtyMin)), true ),
+                Arguments.of(task(at(16, 0), null)      , List.of(task(at(16, 0), null))                               , true ),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(16, 20), twentyMin), List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(15, 40), sixtyMin) , List.of(task(at(16, 0), twentyMin))                          , false),
+                Arguments.of(task(at(16, 30), sixtyMin) , List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(15, 30), sixtyMin) , List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(16, 30), null)     , List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(16, 0), null)      , List.of(task(at(16, 0), sixtyMin))                           , false),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of(task(at(16, 0), null))                               , false),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of(task(at(16, 0), Duration.ZERO))                      , false),
+                Arguments.of(task(at(16, 0), sixtyMin)  , List.of(task(at(16, 30), Duration.ZERO))                     , false),
+                Arguments.of(task(at(15, 0), sixtyMin)  , List.of(task(at(12, 0), sixtyMin), task(at(15, 59), null))   , false)
+                // @formatter:on
+        );
+    }
+
+    private static Task task(LocalDateTime startTime, Duration duration) {
+        return new Task(id++, "description", "title", duration, startTime);
+    }
+
+    private static LocalDateTime at(int hours, int minutes) {
+        return LocalDateTime.of(2022, Month.JUNE, 8, hours, minutes);
+    }
+}
@@ -7,7 +7,10 @@ import ru.yandex.malakovich.tasktracker.manager.TaskManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.Month;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +24,22 @@ class EpicTest {
         epic = manager.createEpic(Epic.create("epic description", new HashSet<>(), "epic title"));
     }
 
+    @Test
+    void subtasksCantBeModified() {
+        createTestSubtask(Status.NEW, "one");
+        Epic withSubtask = manager.getEpicById(epic.getId());
+        Set<Integer> ids = new HashSet<>(withSubtask.getSubtasks());
+        int hash = withSubtask.hashCode();
+
+        assertThrows(UnsupportedOperationException.class, () -> withSubtask.getSubtasks().add(100));
+        assertThrows(UnsupportedOperationException.class, () -> epic.getSubtasks().clear());
+        createTestSubtask(Status.DONE, "two");
+
+        assertEquals(ids, withSubtask.getSubtasks());
+        assertEquals(hash, withSubtask.hashCode());
+        assertEquals(withSubtask.hashCode(), withSubtask.withId(withSubtask.getId()).hashCode());
+    }
+
     @Test
     void statusNewWhenNoSubtasks() {
         assertEquals(Status.NEW, epic.getStatus());
@@ -58,6 +77,53 @@ class EpicTest {
         assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
     }
 
+    @Test
+    void timeIsRecalculatedWhenEarliestAndLatestSubtasksAreDeleted() {
+        LocalDateTime start = LocalDateTime.of(2022, Month.JUNE, 8, 10, 0);
+        createTestSubtask("one", Duration.ofMinutes(30), start);
+        createTestSubtask("two", Duration.ofMinutes(30), start.plusHours(1));
+        createTestSubtask("three", Duration.ofMinutes(30), start.plusHours(2));
+        createTestSubtask("four", Duration.ofMinutes(30), start.plusHours(1).plusMinutes(30));
+
+        List<Subtask> subtasks = manager.getSubtasks();
+        manager.deleteSubtaskById(subtasks.get(0).getId());
+        manager.deleteSubtaskById(subtasks.get(2).getId());
+
+        Epic actual = manager.getEpicById(epic.getId());
+        Epic expected = Epic.create(epic.getId(), epic.getDescription(),
+                manager.getEpicSubtasks(actual), epic.getTitle());
+        assertEquals(expected, actual);
+        assertEquals(start.plusHours(1), actual.getStartTime());
+        assertEquals(Duration.ofHours(1), actual.getDuration());
+    }
+
+    @Test
+    void statusIsRecalculatedWhenSubtaskIsUpdated() {
+        createTestSubtask(Status.DONE, "one");
+        createTestSubtask(Status.DONE, "two");
+        Subtask subtask = manager.getSubtasks().get(0);
+
+        manager.updateSubtask(new Subtask(subtask.getId(), subtask.getDescription(), Status.NEW, epic.getId(),
+                subtask.getTitle(), subtask.getDuration(), subtask.getStartTime()));
+
+        assertEquals(Status.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void epicReplacedByUpdateIsAggregatedAgain() {
+        createTestSubtask(Status.DONE, "one");
+        Epic current = manager.getEpicById(epic.getId());
+        manager.updateEpic(Epic.create(epic.getId(), "new description", new HashSet<>(), "new title"));
+
+        createTestSubtask(Status.DONE, "two");
+
+        Epic actual = manager.getEpicById(epic.getId());
+        assertEquals("new title", actual.getTitle());
+        assertEquals(1, actual.getSubtasks().size());
+        assertNotEquals(current.getSubtasks(), actual.getSubtasks());
+        assertEquals(Status.DONE, actual.getStatus());
+    }
+
     private void createTestSubtask(Status status, String number, Duration duration, LocalDateTime startTime) {
         Subtask subtask = new Subtask(null,
                 "subtask description " + number,
@@ -0,0 +1,65 @@
+package ru.yandex.malakovich.tasktracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTest {
+
+    @Test
+    void keepsTimesExactly() {
+        LocalDateTime startTime = LocalDateTime.of(1812, Month.SEPTEMBER, 7, 5, 30, 15, 123_456_789);
+        Duration duration = Duration.ofSeconds(5_430, 987_654_321);
+        Task task = new Task(7, "description", Status.IN_PROGRESS, "title", duration, startTime);
+
+        assertEquals(7, task.getId());
+        assertEquals(startTime, task.getStartTime());
+        assertEquals(duration, task.getDuration());
+        assertEquals(startTime.plusMinutes(duration.toMinutes()), task.getEndTime());
+    }
+
+    @Test
+    void keepsMissingFields() {
+        Task task = new Task("description", "title", null, null);
+        Subtask subtask = new Subtask("description", Status.NEW, null, "title", null, null);
+
+        assertNull(task.getId());
+        assertNull(task.getStartTime());
+        assertNull(task.getDuration());
+        assertNull(task.getEndTime());
+        assertNull(subtask.getEpicId());
+        assertNotEquals(task, task.withId(0));
+        assertNotEquals(subtask, new Subtask("description", Status.NEW, 0, "title", null, null));
+    }
+
+    @Test
+    void equalTasksHaveEqualHashCodes() {
+        LocalDateTime startTime = LocalDateTime.of(2022, Month.MAY, 1, 10, 0);
+        Task task = new Task(1, "description", "title", Duration.ofMinutes(30), startTime);
+        Subtask subtask = new Subtask(2, "description", Status.DONE, 1, "title", null, null);
+
+        assertEquals(task, new Task(1, "description", "title", null, null));
+        assertEquals(task.hashCode(), new Task(1, "description", "title", null, null).hashCode());
+        assertEquals(subtask, subtask.withId(2));
+        assertEquals(subtask.hashCode(), subtask.withId(2).hashCode());
+        assertNotEquals(subtask, new Subtask(2, "description", Status.DONE, 3, "title", null, null));
+    }
+
+    @Test
+    void compareStartTime() {
+        Task early = new Task(1, "description", "title", null, LocalDateTime.of(2022, Month.MAY, 1, 10, 0));
+        Task late = new Task(2, "description", "title", null, LocalDateTime.of(2022, Month.MAY, 1, 10, 0, 0, 1));
+        Task unscheduled = new Task(3, "description", "title", null, null);
+        List<Task> tasks = new ArrayList<>(List.of(unscheduled, late, early));
+        tasks.sort(Task::compareStartTime);
+
+        assertEquals(List.of(early, late, unscheduled), tasks);
+        assertEquals(0, unscheduled.compareStartTime(new Task("description", "title", null, null)));
+    }
+}
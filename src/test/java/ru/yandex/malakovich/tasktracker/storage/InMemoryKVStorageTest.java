@@ -0,0 +1,8 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+public class InMemoryKVStorageTest extends KVStorageTest<InMemoryKVStorage> {
+    @Override
+    protected InMemoryKVStorage createStorage() {
+        return new InMemoryKVStorage();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+abstract class KVStorageTest<T extends KVStorage> {
+    protected T storage;
+
+    protected abstract T createStorage();
+
+    @BeforeEach
+    void beforeEach() {
+        storage = createStorage();
+    }
+
+    @AfterEach
+    void afterEach() {
+        storage.close();
+    }
+
+    @Test
+    void getMissingKey() {
+        assertNull(storage.get("missing"));
+    }
+
+    @Test
+    void putOverwritesValue() {
+        storage.put("key", "one");
+        storage.put("key", "two");
+
+        assertEquals("two", storage.get("key"));
+    }
+
+    @Test
+    void removeDeletesValue() {
+        storage.put("key", "value");
+        storage.remove("key");
+
+        assertNull(storage.get("key"));
+    }
+
+    @Test
+    void applyPutsAndRemoves() {
+        storage.put("removed", "value");
+        Map<String, String> changes = new HashMap<>();
+        changes.put("removed", null);
+        changes.put("added", "значение");
+
+        storage.apply(changes);
+
+        assertNull(storage.get("removed"));
+        assertEquals("значение", storage.get("added"));
+    }
+
+    @Test
+    void parallelWritersDontLoseValues() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int prefix = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    storage.put(prefix + "/" + i, String.valueOf(i));
+                    assertEquals(String.valueOf(i), storage.get(prefix + "/" + i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        for (int thread = 0; thread < 4; thread++) {
+            for (int i = 0; i < 200; i++) {
+                assertEquals(String.valueOf(i), storage.get(thread + "/" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.malakovich.tasktracker.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogStructuredKVStorageTest extends KVStorageTest<LogStructuredKVStorage> {
+    private static final long SEGMENT_SIZE = 256;
+    private Path directory;
+
+    @Override
+    protected LogStructuredKVStorage createStorage() {
+        try {
+            directory = Files.createTempDirectory("kv");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+    }
+
+    @Test
+    void valuesSurviveRestart() {
+        for (int i = 0; i < 50; i++) {
+            storage.put("key/" + i, "value " + i);
+        }
+        storage.remove("key/7");
+        storage.put("key/8", "updated");
+        assertTrue(storage.getSegmentCount() > 1);
+        storage.close();
+
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+
+        assertNull(storage.get("key/7"));
+        assertEquals("updated", storage.get("key/8"));
+        assertEquals("value 49", storage.get("key/49"));
+    }
+
+    @Test
+    void sealedSegmentsAreRestoredFromHints() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            storage.put("key/" + i, "value " + i);
+        }
+        storage.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            long data = files.filter(path -> path.toString().endsWith(LogStructuredKVStorage.DATA_SUFFIX)).count();
+            try (Stream<Path> hints = Files.list(directory)) {
+                assertEquals(data, hints.filter(path -> path.toString().endsWith(LogStructuredKVStorage.HINT_SUFFIX))
+                        .count());
+            }
+        }
+
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+
+        assertEquals("value 0", storage.get("key/0"));
+    }
+
+    @Test
+    void brokenHintsFallBackToScan() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            storage.put("key/" + i, "value " + i);
+        }
+        storage.close();
+        int i = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path hint : (Iterable<Path>) files.filter(path -> path.toString()
+                    .endsWith(LogStructuredKVStorage.HINT_SUFFIX))::iterator) {
+                byte[] bytes = Files.readAllBytes(hint);
+                switch (i++ % 3) {
+                    case 0:
+                        // the rename survived a power loss, the contents didn't
+                        Files.write(hint, new byte[0]);
+                        break;
+                    case 1:
+                        Files.write(hint, Arrays.copyOf(bytes, bytes.length / 2));
+                        break;
+                    default:
+                        bytes[0] ^= 1;
+                        Files.write(hint, bytes);
+                }
+            }
+        }
+        assertTrue(i > 2);
+
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+
+        for (int key = 0; key < 50; key++) {
+            assertEquals("value " + key, storage.get("key/" + key));
+        }
+    }
+
+    @Test
+    void tornTailOfActiveSegmentIsCutOff() throws IOException {
+        storage.put("first", "value");
+        storage.put("second", "value");
+        Path segment = lastSegment();
+        storage.close();
+        Files.delete(Path.of(segment.toString().replace(LogStructuredKVStorage.DATA_SUFFIX,
+                LogStructuredKVStorage.HINT_SUFFIX)));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+        storage.put("third", "value");
+
+        assertEquals("value", storage.get("first"));
+        assertNull(storage.get("second"));
+        assertEquals("value", storage.get("third"));
+    }
+
+    @Test
+    void compactDropsOverwrittenValues() {
+        for (int i = 0; i < 100; i++) {
+            storage.put("key", "value " + i);
+        }
+        storage.put("removed", "value");
+        storage.remove("removed");
+        int segments = storage.getSegmentCount();
+
+        storage.compact();
+
+        assertTrue(storage.getSegmentCount() < segments);
+        assertEquals("value 99", storage.get("key"));
+        assertNull(storage.get("removed"));
+        storage.close();
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+        assertEquals("value 99", storage.get("key"));
+        assertNull(storage.get("removed"));
+    }
+
+    @Test
+    void sealedValuesAreServedFromMappedSegments() {
+        storage.put("sealed", "значение");
+        for (int i = 0; i < 50; i++) {
+            storage.put("key/" + i, "value " + i);
+        }
+
+        ByteBuffer sealed = storage.getBytes("sealed");
+        assertTrue(sealed.isDirect());
+        assertTrue(sealed.isReadOnly());
+        assertEquals("значение", StandardCharsets.UTF_8.decode(sealed).toString());
+
+        storage.close();
+        storage = new LogStructuredKVStorage(directory, SEGMENT_SIZE, true);
+
+        assertTrue(storage.getBytes("sealed").isDirect());
+        assertEquals("значение", storage.get("sealed"));
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(LogStructuredKVStorage.DATA_SUFFIX))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+    }
+}
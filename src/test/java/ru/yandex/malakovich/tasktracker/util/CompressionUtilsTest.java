@@ -0,0 +1,63 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionUtilsTest {
+
+    @ParameterizedTest
+    @MethodSource("negotiateSource")
+    void negotiate(String acceptEncoding, String expected) {
+        assertEquals(expected, CompressionUtils.negotiate(acceptEncoding));
+    }
+
+    private static Stream<Arguments> negotiateSource() {
+        return Stream.of(
+                Arguments.of(null, null),
+                Arguments.of("", null),
+                Arguments.of("identity", null),
+                Arguments.of("gzip", "gzip"),
+                Arguments.of("deflate", "deflate"),
+                Arguments.of("gzip, deflate, br", "gzip"),
+                Arguments.of("gzip;q=0.5, deflate", "deflate"),
+                Arguments.of("gzip;q=0, deflate;q=0", null),
+                Arguments.of("*", "gzip"),
+                Arguments.of("*, gzip;q=0", "deflate"),
+                Arguments.of("br, *;q=0", null)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "deflate", "identity"})
+    void compressAndDecompress(String encoding) throws IOException {
+        byte[] data = "{\"title\":\"task\",\"description\":\"task\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = CompressionUtils.compress(data, encoding);
+
+        assertArrayEquals(data, CompressionUtils.decompress(compressed, encoding));
+        if (!encoding.equals(CompressionUtils.IDENTITY)) {
+            assertTrue(compressed.length < data.length / 10);
+        }
+    }
+
+    @Test
+    void unsupportedEncoding() {
+        assertFalse(CompressionUtils.isSupported("br"));
+        assertTrue(CompressionUtils.isSupported(null));
+        assertTrue(CompressionUtils.isSupported("GZIP"));
+        assertThrows(IOException.class, () -> CompressionUtils.compress(new byte[1], "br"));
+    }
+}
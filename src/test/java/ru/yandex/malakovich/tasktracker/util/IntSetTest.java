@@ -0,0 +1,84 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IntSetTest {
+
+    @Test
+    void behavesLikeTreeSet() {
+        Set<Integer> expected = new TreeSet<>();
+        IntSet actual = new IntSet();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(3) == 0 ? random.nextInt(i + 1) : i;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(value), actual.remove(value));
+            } else {
+                assertEquals(expected.add(value), actual.add(value));
+            }
+            assertEquals(expected.contains(value), actual.contains(value));
+
+            if (i % 1000 == 0) {
+                assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+                assertEquals(expected, actual);
+                assertEquals(expected.hashCode(), actual.hashCode());
+            }
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+    }
+
+    @Test
+    void copyAndRemoveWhileIterating() {
+        IntSet set = new IntSet(List.of(5, 1, 3, 2, 4));
+        IntSet copy = new IntSet(set);
+
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(List.of(1, 3, 5), new ArrayList<>(set));
+        assertEquals(Set.of(1, 2, 3, 4, 5), copy);
+        assertFalse(set.contains((Object) "1"));
+    }
+
+    @Test
+    void snapshotsDoNotSeeLaterChanges() {
+        IntSet set = new IntSet(List.of(1, 3));
+        IntSet first = set.snapshot();
+        set.add(5);
+        IntSet second = set.snapshot();
+        set.add(2);
+        set.remove(5);
+        IntSet third = set.snapshot();
+        // appended in place, after the end of the third snapshot
+        set.add(4);
+        IntSet fourth = set.snapshot();
+        set.clear();
+        set.add(7);
+
+        assertEquals(List.of(1, 3), new ArrayList<>(first));
+        assertEquals(List.of(1, 3, 5), new ArrayList<>(second));
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(third));
+        assertEquals(List.of(1, 2, 3, 4), new ArrayList<>(fourth));
+        assertEquals(List.of(7), new ArrayList<>(set));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(9));
+        Iterator<Integer> iterator = second.iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+    }
+}
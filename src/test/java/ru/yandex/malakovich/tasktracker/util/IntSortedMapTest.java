@@ -0,0 +1,75 @@
+package ru.yandex.malakovich.tasktracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntSortedMapTest {
+
+    @Test
+    void behavesLikeTreeMap() {
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        IntSortedMap<String> actual = new IntSortedMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            // mostly growing keys like the ids of a task manager, with removals and keys in the middle
+            int key = random.nextInt(3) == 0 ? random.nextInt(i + 1) : i;
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), actual.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.replace(key, "replaced " + i), actual.replace(key, "replaced " + i));
+                    break;
+                default:
+                    assertEquals(expected.put(key, "value " + i), actual.put(key, "value " + i));
+            }
+            assertEquals(expected.get(key), actual.get(key));
+            assertEquals(expected.containsKey(key), actual.containsKey(key));
+
+            if (i % 1000 == 0) {
+                assertEquals(expected.size(), actual.size());
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+                assertEquals(new ArrayList<>(expected.tailMap(key, false).values()),
+                        new ArrayList<>(actual.tailValues(key)));
+                assertEquals(expected.tailMap(key, false).size(), actual.tailValues(key).size());
+            }
+        }
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+    }
+
+    @Test
+    void clear() {
+        IntSortedMap<String> map = new IntSortedMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    void removedKeyIsNotReplaced() {
+        IntSortedMap<String> map = new IntSortedMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put(i, "value " + i);
+        }
+        map.remove(3);
+
+        assertNull(map.replace(3, "replaced"));
+        assertFalse(map.containsKey(3));
+        assertEquals(9, map.size());
+        assertEquals(List.of("value 4", "value 5"), new ArrayList<>(map.tailValues(3)).subList(0, 2));
+    }
+}